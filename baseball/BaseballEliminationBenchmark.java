@@ -0,0 +1,76 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.Random;
+
+/**
+ * Benchmark of the {@link BaseballElimination} construction (which solves all the maxflow
+ * problems) on random divisions, parameterized by the number of teams.
+ * <p>
+ * Usage: <code>java BaseballEliminationBenchmark [teams ...]</code> (default: 10 30 60)
+ * <p>
+ * The operations are measured by {@link Benchmark} ({@value #WARMUP_ITERATIONS} warm-up, {@value
+ * #MEASUREMENT_ITERATIONS} measured runs).
+ */
+public class BaseballEliminationBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 10;
+    private static final int[] DEFAULT_SIZES = { 10, 30, 60 };
+    private static final Benchmark BENCHMARK =
+            new Benchmark(WARMUP_ITERATIONS, MEASUREMENT_ITERATIONS);
+
+    public static void main(String[] args) {
+        int[] sizes = Benchmark.parseSizes(args, DEFAULT_SIZES);
+
+        Benchmark.printHeader();
+        for (int size : sizes) {
+            File division = randomDivision(size);
+            BENCHMARK.measure("BaseballElimination.<init>", size,
+                    () -> new BaseballElimination(division.getPath()).numberOfTeams());
+            division.delete();
+        }
+    }
+
+    /**
+     * Writes a random division of teams to a temporary file in the input format of {@link
+     * BaseballElimination}
+     *
+     * @param teams the number of teams
+     * @return the file
+     */
+    private static File randomDivision(int teams) {
+        Random random = new Random(teams);
+        int[][] against = new int[teams][teams];
+        for (int i = 0; i < teams; i++) {
+            for (int j = i + 1; j < teams; j++) {
+                against[i][j] = random.nextInt(8);
+                against[j][i] = against[i][j];
+            }
+        }
+
+        try {
+            File file = File.createTempFile("division", ".txt");
+            try (PrintWriter writer = new PrintWriter(file)) {
+                writer.println(teams);
+                for (int i = 0; i < teams; i++) {
+                    int remaining = 0;
+                    for (int j = 0; j < teams; j++) {
+                        remaining += against[i][j];
+                    }
+                    writer.print("Team" + i + " " + (60 + random.nextInt(30)) + " "
+                                         + random.nextInt(90) + " " + remaining);
+                    for (int j = 0; j < teams; j++) {
+                        writer.print(" " + against[i][j]);
+                    }
+                    writer.println();
+                }
+            }
+            return file;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
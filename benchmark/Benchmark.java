@@ -0,0 +1,94 @@
+import java.util.function.IntSupplier;
+
+/**
+ * Measures the operations of the benchmarks of the packages (e.g. SeamCarverBenchmark): each
+ * operation is run a number of times to let the JIT compile it (warm-up), then the average time of
+ * the measured runs is returned or printed in a row of the result table.
+ * <p>
+ * The classes of the packages are in the default package, so this class is compiled into each
+ * package by the build (e.g. <code>gradle seamBenchmark</code>), or shared by adding this directory
+ * to the class path, e.g. <code>javac -cp algs4.jar:../benchmark SeamCarverBenchmark.java</code>.
+ */
+public class Benchmark {
+
+    /**
+     * Sink for the results, to keep the JIT from eliminating the benchmarked code
+     */
+    private static long sink;
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+
+    /**
+     * Creates a benchmark
+     * <p>
+     * Throw a java.lang.IllegalArgumentException if the warm-up iterations are negative or the
+     * measurement iterations are not positive.
+     *
+     * @param warmupIterations      the number of runs before measuring
+     * @param measurementIterations the number of measured runs
+     */
+    public Benchmark(int warmupIterations, int measurementIterations) {
+        if (warmupIterations < 0 || measurementIterations < 1) {
+            throw new IllegalArgumentException(
+                    String.format("Wrong warm-up: %d or measurement iterations: %d",
+                                  warmupIterations, measurementIterations));
+        }
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+    }
+
+    /**
+     * Returns the sizes given on the command line, or the default sizes if there are none
+     *
+     * @param args         the command line arguments, each one is a size
+     * @param defaultSizes the default sizes
+     * @return the sizes
+     */
+    public static int[] parseSizes(String[] args, int[] defaultSizes) {
+        if (args.length == 0) {
+            return defaultSizes;
+        }
+        int[] sizes = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        return sizes;
+    }
+
+    /**
+     * Prints the header of the result table printed by {@link #measure(String, Object,
+     * IntSupplier)}
+     */
+    public static void printHeader() {
+        System.out.format("%-36s %12s %12s\n", "benchmark", "size", "ms/op");
+    }
+
+    /**
+     * Runs the operation and returns the average time of the measured runs
+     *
+     * @param operation the operation to measure, returning any result depending on its work
+     * @return the average time of a run in milliseconds
+     */
+    public double time(IntSupplier operation) {
+        for (int i = 0; i < warmupIterations; i++) {
+            sink += operation.getAsInt();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < measurementIterations; i++) {
+            sink += operation.getAsInt();
+        }
+        return (System.nanoTime() - start) / 1e6 / measurementIterations;
+    }
+
+    /**
+     * Runs and measures the operation, printing a row of the result table
+     *
+     * @param name      the name of the benchmark
+     * @param size      the size of the input
+     * @param operation the operation to measure
+     */
+    public void measure(String name, Object size, IntSupplier operation) {
+        System.out.format("%-36s %12s %12.3f\n", name, size, time(operation));
+    }
+}
@@ -0,0 +1,376 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary of words of the uppercase letters A through Z, compiled into a DAWG (directed acyclic
+ * word graph): a trie in which the equal suffixes are shared, so it has far fewer nodes than the
+ * trie of the same words.
+ * <p>
+ * The graph is built by the incremental algorithm of Daciuk et al. for sorted input: the words are
+ * added in order, and the nodes of the previous word which are not on the common prefix with the
+ * next word are final, so they are replaced by an equivalent node (same children and end of word
+ * flag) found in a register, or registered. The finished graph is stored in flat arrays, a node is
+ * an int index:
+ * <ul>
+ * <li>{@link #masks}: bit c (0 for 'A' .. 25 for 'Z') is set if the node has a child for the
+ * letter c, bit {@value #WORD_BIT_INDEX} is set if a word ends at the node</li>
+ * <li>{@link #firstChild}: the index of the first child of the node in {@link #children}, the
+ * children are stored in the order of the letters</li>
+ * </ul>
+ * so the child for a letter is found in O(1): <code>children[firstChild[node] +
+ * Integer.bitCount(mask &amp; (bit - 1))]</code>.
+ * <p>
+ * The graph is immutable, it can be shared by any number of threads.
+ */
+public class BoggleDawg {
+
+    /**
+     * The node of the empty prefix
+     */
+    public static final int ROOT = 0;
+
+    /**
+     * Returned by {@link #getChild(int, char)} if there is no child for the letter
+     */
+    public static final int NONE = -1;
+
+    private static final int WORD_BIT_INDEX = 26;
+    private static final int WORD_BIT = 1 << WORD_BIT_INDEX;
+    private static final int LETTER_MASK = WORD_BIT - 1;
+
+    /**
+     * The letters of the children and the end of word flag of each node
+     */
+    private final int[] masks;
+
+    /**
+     * The index of the first child of each node in the {@link #children}
+     */
+    private final int[] firstChild;
+
+    /**
+     * The child nodes of all nodes
+     */
+    private final int[] children;
+
+    /**
+     * Number of words
+     */
+    private final int size;
+
+    /**
+     * Builds the DAWG of the words. The words are sorted (a copy of the array), the duplicates and
+     * the empty words are ignored.
+     * <p>
+     * Throw a java.lang.IllegalArgumentException if the array or a word is null or a word contains
+     * other characters than the uppercase letters A through Z.
+     *
+     * @param words the words
+     */
+    public BoggleDawg(String[] words) {
+        if (words == null) {
+            throw new IllegalArgumentException();
+        }
+        String[] sorted = words.clone();
+        for (String word : sorted) {
+            checkWord(word);
+        }
+        Arrays.sort(sorted);
+
+        Builder builder = new Builder();
+        String previous = "";
+        int count = 0;
+        for (String word : sorted) {
+            if (word.isEmpty() || word.equals(previous)) {
+                continue;
+            }
+            builder.add(word);
+            previous = word;
+            count++;
+        }
+        State root = builder.finish();
+
+        // number the states, the root is the first one
+        State[] states = new State[builder.register.size() + 1];
+        int childCount = 0;
+        int stateCount = 0;
+        root.id = stateCount;
+        states[stateCount++] = root;
+        for (int i = 0; i < stateCount; i++) {
+            State state = states[i];
+            childCount += state.count;
+            for (int c = 0; c < state.count; c++) {
+                State child = state.children[c];
+                if (child.id == NONE) {
+                    child.id = stateCount;
+                    states[stateCount++] = child;
+                }
+            }
+        }
+
+        this.size = count;
+        this.masks = new int[stateCount];
+        this.firstChild = new int[stateCount];
+        this.children = new int[childCount];
+        int next = 0;
+        for (int i = 0; i < stateCount; i++) {
+            State state = states[i];
+            masks[i] = state.mask | (state.word ? WORD_BIT : 0);
+            firstChild[i] = next;
+            for (int c = 0; c < state.count; c++) {
+                children[next++] = state.children[c].id;
+            }
+        }
+    }
+
+    private static void checkWord(String word) {
+        if (word == null) {
+            throw new IllegalArgumentException("null word in the dictionary");
+        }
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                throw new IllegalArgumentException(
+                        String.format("Wrong character: '%c' in word: %s", c, word));
+            }
+        }
+    }
+
+    /**
+     * Returns the child of the node for the letter
+     *
+     * @param node   the node
+     * @param letter the letter, 'A' through 'Z'
+     * @return the child node or {@link #NONE} if no word continues with the letter
+     */
+    public int getChild(int node, char letter) {
+        int mask = masks[node];
+        int bit = 1 << (letter - 'A');
+        if ((mask & bit) == 0) {
+            return NONE;
+        }
+        return children[firstChild[node] + Integer.bitCount(mask & (bit - 1))];
+    }
+
+    /**
+     * Returns true if a word ends at the node
+     *
+     * @param node the node
+     * @return true if the prefix of the node is a word
+     */
+    public boolean isWord(int node) {
+        return (masks[node] & WORD_BIT) != 0;
+    }
+
+    /**
+     * Returns true if the node has children: there are longer words starting with the prefix of
+     * the node
+     *
+     * @param node the node
+     * @return true if the node has children
+     */
+    public boolean hasChildren(int node) {
+        return (masks[node] & LETTER_MASK) != 0;
+    }
+
+    /**
+     * Returns the node of the prefix
+     *
+     * @param prefix the prefix
+     * @return the node or {@link #NONE} if there is no word with the prefix
+     * @throws IllegalArgumentException if the prefix is null
+     */
+    public int getNode(String prefix) {
+        if (prefix == null) {
+            throw new IllegalArgumentException();
+        }
+        int node = ROOT;
+        for (int i = 0; i < prefix.length() && node != NONE; i++) {
+            char c = prefix.charAt(i);
+            node = c >= 'A' && c <= 'Z' ? getChild(node, c) : NONE;
+        }
+        return node;
+    }
+
+    /**
+     * Does the dictionary contain the word?
+     *
+     * @param word the word
+     * @return true if the word is in the dictionary
+     */
+    public boolean contains(String word) {
+        int node = getNode(word);
+        return node != NONE && isWord(node);
+    }
+
+    /**
+     * Returns the number of words
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of nodes of the graph
+     */
+    public int nodes() {
+        return masks.length;
+    }
+
+    /**
+     * Returns the number of edges of the graph
+     */
+    public int edges() {
+        return children.length;
+    }
+
+    @Override
+    public String toString() {
+        return "BoggleDawg{" +
+                "words=" + size +
+                ", nodes=" + nodes() +
+                ", edges=" + edges() +
+                '}';
+    }
+
+    /**
+     * A node of the graph while it is built. The children are added in the order of the letters,
+     * as the words are sorted.
+     */
+    private static class State {
+        private static final State[] NO_CHILDREN = new State[0];
+
+        private int mask;
+        private boolean word;
+        private State[] children = NO_CHILDREN;
+        private int count;
+        private int id = NONE;
+
+        private void add(char letter, State child) {
+            if (count == children.length) {
+                children = Arrays.copyOf(children, Math.max(2, 2 * count));
+            }
+            children[count++] = child;
+            mask |= 1 << (letter - 'A');
+        }
+
+        private State getChild(char letter) {
+            int bit = 1 << (letter - 'A');
+            if ((mask & bit) == 0) {
+                return null;
+            }
+            return children[Integer.bitCount(mask & (bit - 1))];
+        }
+
+        private State getLastChild() {
+            return count == 0 ? null : children[count - 1];
+        }
+
+        /**
+         * Two registered states are equivalent if they have the same letters, the same (registered)
+         * children and the same end of word flag
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof State)) {
+                return false;
+            }
+            State state = (State) o;
+            if (mask != state.mask || word != state.word) {
+                return false;
+            }
+            for (int i = 0; i < count; i++) {
+                if (children[i] != state.children[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 31 * mask + (word ? 1 : 0);
+            for (int i = 0; i < count; i++) {
+                hash = 31 * hash + System.identityHashCode(children[i]);
+            }
+            return hash;
+        }
+    }
+
+    /**
+     * The incremental construction of the minimal graph from sorted words
+     */
+    private static class Builder {
+        private final State root = new State();
+
+        /**
+         * The unique representative of each final state
+         */
+        private final Map<State, State> register = new HashMap<>();
+
+        /**
+         * Adds the word, it must be greater than the previously added word
+         *
+         * @param word the word
+         */
+        private void add(String word) {
+            // the common prefix with the previous word
+            State state = root;
+            int length = 0;
+            while (length < word.length()) {
+                State child = state.getChild(word.charAt(length));
+                if (child == null) {
+                    break;
+                }
+                state = child;
+                length++;
+            }
+
+            // the rest of the previous word will not change anymore
+            if (state.count > 0) {
+                replaceOrRegister(state);
+            }
+
+            for (; length < word.length(); length++) {
+                State child = new State();
+                state.add(word.charAt(length), child);
+                state = child;
+            }
+            state.word = true;
+        }
+
+        /**
+         * Minimizes the last added word
+         *
+         * @return the root
+         */
+        private State finish() {
+            if (root.count > 0) {
+                replaceOrRegister(root);
+            }
+            return root;
+        }
+
+        /**
+         * Replaces the last child of the state by the equivalent registered state, or registers it
+         * if there is none, after doing the same for the last child of the child (the states of
+         * the suffix of the previous word)
+         *
+         * @param state the state
+         */
+        private void replaceOrRegister(State state) {
+            State child = state.getLastChild();
+            if (child.count > 0) {
+                replaceOrRegister(child);
+            }
+            State registered = register.putIfAbsent(child, child);
+            if (registered != null) {
+                state.children[state.count - 1] = registered;
+            }
+        }
+    }
+}
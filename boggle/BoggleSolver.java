@@ -1,23 +1,60 @@
 import edu.princeton.cs.algs4.In;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
 
+/**
+ * Finds all valid words of Boggle boards.
+ * <p>
+ * The dictionary is immutable after construction and the mutable state of a search is kept in a
+ * per-thread {@link Scratch}, so one solver can be shared by any number of threads. {@link
+ * #solveAll(List)} solves many boards in parallel, {@link #solveAll(Stream)} maps a (parallel)
+ * stream of boards.
+ * <p>
+ * Boards of at most {@value #MAX_BITMASK_CELLS} cells are searched iteratively without allocation
+ * (except the found words): the visited cells are the bits of a long, the neighbours of the cells
+ * are in a precomputed int array and the depth first search has its own stack of arrays. Larger
+ * boards are searched recursively on a {@link StepTable}.
+ */
 public class BoggleSolver {
-    private BoggleTST<Integer> tst = new BoggleTST<Integer>();
+    /**
+     * Maximum number of boards solved by one task of {@link #solveAll(List, ForkJoinPool)}
+     */
+    private static final int SOLVE_THRESHOLD = 16;
+
+    /**
+     * Maximum number of cells of a board searched with a bitmask of visited cells
+     */
+    private static final int MAX_BITMASK_CELLS = Long.SIZE;
+
+    /**
+     * Maximum number of neighbours of a cell
+     */
+    private static final int MAX_NEIGHBOURS = 8;
+
+    /**
+     * The dictionary, the score of a word depends only on its length
+     */
+    private final BoggleDawg dawg;
+
+    /**
+     * The buffers of the searches of each thread, reused from board to board
+     */
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
 
     // Initializes the data structure using the given array of strings as the dictionary.
     // (You can assume each word in the dictionary contains only the uppercase letters A through Z.)
     public BoggleSolver(String[] dictionary) {
-        for (int i = 0; i < dictionary.length; i++) {
-            String key = dictionary[i];
-            tst.put(key, getScore(key));
-        }
+        dawg = new BoggleDawg(dictionary);
     }
 
-    private Integer getScore(String s) {
+    private int getScore(String s) {
         int score;
         switch (s.length()) {
             case 0:
@@ -82,33 +119,174 @@ public class BoggleSolver {
         Set<String> words = new HashSet<String>();
         int rows = board.rows();
         int cols = board.cols();
+        if (rows * cols <= MAX_BITMASK_CELLS) {
+            Scratch s = scratch.get();
+            s.setBoard(board);
+            for (int cell = 0; cell < rows * cols; cell++) {
+                findAllWordsFromCell(cell, s, words);
+            }
+            return words;
+        }
+
         StepTable st = new StepTable(board);
+        char[] currentWord = scratch.get().getWord(rows * cols * 2);
 
         for (int row = 0; row < rows; row++) {
             for (int col = 0; col < cols; col++) {
-                findAllWordsFromCell(row, col, st, words);
+                findAllWordsFromCell(row, col, st, currentWord, words);
             }
         }
 
         return words;
     }
 
+    /**
+     * Finds the valid words of each board in parallel on the common {@link ForkJoinPool}
+     *
+     * @param boards the boards
+     * @return the valid words of each board, in the order of the boards
+     * @see #solveAll(List, ForkJoinPool)
+     */
+    public List<Iterable<String>> solveAll(List<BoggleBoard> boards) {
+        return solveAll(boards, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Finds the valid words of each board in parallel, splitting the boards into tasks of {@value
+     * #SOLVE_THRESHOLD} boards across the pool. Returns when all boards are solved.
+     * <p>
+     * Throw a java.lang.IllegalArgumentException if the list, a board or the pool is null.
+     *
+     * @param boards the boards
+     * @param pool   the {@link ForkJoinPool}
+     * @return the valid words of each board, in the order of the boards
+     */
+    public List<Iterable<String>> solveAll(List<BoggleBoard> boards, ForkJoinPool pool) {
+        if (boards == null || pool == null) {
+            throw new IllegalArgumentException(
+                    String.format("Wrong boards: %s or pool: %s", boards, pool));
+        }
+        BoggleBoard[] boardArray = boards.toArray(new BoggleBoard[0]);
+        for (BoggleBoard board : boardArray) {
+            if (board == null) {
+                throw new IllegalArgumentException("null board");
+            }
+        }
+        List<Iterable<String>> results = new ArrayList<>(
+                Collections.nCopies(boardArray.length, (Iterable<String>) null));
+        pool.invoke(new SolveTask(this, boardArray, results, 0, boardArray.length));
+        return results;
+    }
+
+    /**
+     * Maps each board of the stream to its valid words. The stream is lazy: the boards are solved
+     * by the terminal operation, in the order of the boards if the stream is ordered. The mode of
+     * the pipeline is left to the caller: the boards are solved in parallel (on the common {@link
+     * ForkJoinPool}) only if the stream is parallel, e.g. <code>solveAll(boards.parallel())</code>.
+     *
+     * @param boards the boards
+     * @return the stream of the valid words of each board
+     */
+    public Stream<Iterable<String>> solveAll(Stream<BoggleBoard> boards) {
+        if (boards == null) {
+            throw new IllegalArgumentException();
+        }
+        return boards.map(this::getAllValidWords);
+    }
+
     // Returns the score of the given word if it is in the dictionary, zero otherwise.
     // (You can assume the word contains only the uppercase letters A through Z.)
     public int scoreOf(String word) {
-        Integer score = tst.get(word);
-        if (score == null) {
+        if (!dawg.contains(word)) {
             return 0;
         }
-        return score;
+        return getScore(word);
     }
 
-    private void findAllWordsFromCell(int row, int col, StepTable st, Set<String> words) {
-        BoggleTST.Node<Integer> root = tst.getRoot();
+    /**
+     * Iterative depth first search with backtracking to find all valid words from the cell, on a
+     * board of at most {@value #MAX_BITMASK_CELLS} cells
+     *
+     * @param start the index of the first cell
+     * @param s     the {@link Scratch} set to the board
+     * @param words words collected so far
+     */
+    private void findAllWordsFromCell(int start, Scratch s, Set<String> words) {
+        char[] letters = s.letters;
+        int[] neighbours = s.neighbours;
+        int[] neighbourCounts = s.neighbourCounts;
+        char[] currentWord = s.word;
+        int[] cellStack = s.cellStack;
+        int[] nodeStack = s.nodeStack;
+        int[] nextStack = s.nextStack;
+        int[] lengthStack = s.lengthStack;
+
+        long visited = 0;
+        int depth = 0;
+        int cell = start;
+        int parentNode = BoggleDawg.ROOT;
+        int currentWordLength = 0;
+        while (true) {
+            // step to the cell: the node of the current word with the next character, "Qu" for 'Q'
+            char character = letters[cell];
+            int node = dawg.getChild(parentNode, character);
+            if (character == 'Q' && node != BoggleDawg.NONE) {
+                node = dawg.getChild(node, 'U');
+            }
+            if (node != BoggleDawg.NONE) {
+                int length = currentWordLength;
+                if (character == 'Q') {
+                    currentWord[length++] = 'Q';
+                    character = 'U';
+                }
+                currentWord[length++] = character;
+
+                if (dawg.isWord(node) && length >= 3) {
+                    // found a word!
+                    words.add(new String(currentWord, 0, length));
+                }
+                // is there a longer word starting with current word?
+                if (dawg.hasChildren(node)) {
+                    visited |= 1L << cell;
+                    cellStack[depth] = cell;
+                    nodeStack[depth] = node;
+                    nextStack[depth] = 0;
+                    lengthStack[depth] = length;
+                    depth++;
+                }
+            }
+
+            // find the next unvisited neighbour of the deepest cell, backtracking when there is none
+            cell = -1;
+            while (depth > 0 && cell < 0) {
+                int top = depth - 1;
+                int current = cellStack[top];
+                if (nextStack[top] < neighbourCounts[current]) {
+                    int neighbour = neighbours[current * MAX_NEIGHBOURS + nextStack[top]++];
+                    if ((visited & (1L << neighbour)) == 0) {
+                        cell = neighbour;
+                    }
+                }
+                else {
+                    // unvisit the cell
+                    visited &= ~(1L << current);
+                    depth--;
+                }
+            }
+            if (cell < 0) {
+                return;
+            }
+            parentNode = nodeStack[depth - 1];
+            currentWordLength = lengthStack[depth - 1];
+        }
+    }
+
+    private void findAllWordsFromCell(int row, int col, StepTable st, char[] currentWord,
+                                      Set<String> words) {
+        int root = BoggleDawg.ROOT;
         Step first = new Step(Util.getIndex(row, col, st.getCols()),
                               st.getChar(row, col),
                               st.getRows());
-        char[] currentWord = new char[st.getRows() * st.getCols() * 2];
         int currentWordLength = 0;
         dfs(root, first, currentWord, currentWordLength, st, words);
     }
@@ -116,57 +294,49 @@ public class BoggleSolver {
     /**
      * Depth First Search with backtracking to find all valid words from <code>currentStep</code>
      *
-     * @param node              the {@link BoggleTST.Node} either root of the {@link BoggleTST} or
-     *                          the level of currentWord
+     * @param node              the {@link BoggleDawg} node of the current word
      * @param currentStep       the next step
      * @param currentWord       the current word
      * @param currentWordLength the length of the current word
      * @param st                {@link StepTable}
      * @param words             words collected so far
      */
-    private void dfs(BoggleTST.Node<Integer> node,
+    private void dfs(int node,
                      Step currentStep,
                      char[] currentWord,
                      int currentWordLength,
                      StepTable st,
                      Set<String> words) {
 
+        // the node of the current word with the next character, "Qu" for 'Q'
+        char character = currentStep.getCharacter();
+        int nextNode = dawg.getChild(node, character);
+        if (character == 'Q' && nextNode != BoggleDawg.NONE) {
+            nextNode = dawg.getChild(nextNode, 'U');
+        }
+        if (nextNode == BoggleDawg.NONE) {
+            // no word starts with the current word
+            return;
+        }
+
         // append char to current word
-        currentWordLength = getWord(currentWord, currentWordLength, currentStep.getCharacter());
+        currentWordLength = getWord(currentWord, currentWordLength, character);
 
         // mark current cell as visited
         st.visit(currentStep, true);
 
-        // handling special "Qu" case
-        int characterStep = 1;
-        if (endsWithQU(currentWord, currentWordLength)) {
-            characterStep = 2;
-        }
-
-        // if the current word is just one character the root node is used, when there are more
-        // characters in the current word, the level below the current node
-        if (currentWordLength > characterStep) {
-            node = node.getMid();
+        if (dawg.isWord(nextNode) && currentWordLength >= 3) {
+            // found a word!
+            String currentWordString = new String(currentWord, 0, currentWordLength);
+            words.add(currentWordString);
         }
+        // is there a longer word starting with current word?
+        if (dawg.hasChildren(nextNode)) {
 
-        // find the Node starting with the current word using the node previously found
-        BoggleTST.Node<Integer> nextNode = tst
-                .get(node, currentWord, currentWordLength, currentWordLength - characterStep);
-
-        if (nextNode != null) {
-            if (nextNode.getVal() != null && currentWordLength >= 3) {
-                // found a word!
-                String currentWordString = new String(currentWord, 0, currentWordLength);
-                words.add(currentWordString);
-            }
-            // is there a longer word starting with current word?
-            if (nextNode.getMid() != null) {
-
-                List<Step> availableNextSteps = st.getAvailableNextSteps(currentStep);
-                for (Step nextStep : availableNextSteps) {
-                    if (!st.isVisited(nextStep)) {
-                        dfs(nextNode, nextStep, currentWord, currentWordLength, st, words);
-                    }
+            List<Step> availableNextSteps = st.getAvailableNextSteps(currentStep);
+            for (Step nextStep : availableNextSteps) {
+                if (!st.isVisited(nextStep)) {
+                    dfs(nextNode, nextStep, currentWord, currentWordLength, st, words);
                 }
             }
         }
@@ -175,14 +345,6 @@ public class BoggleSolver {
         st.visit(currentStep, false);
     }
 
-    private boolean endsWithQU(char[] currentWord, int currentWordLength) {
-        if (currentWordLength >= 2) {
-            return currentWord[currentWordLength - 1] == 'U'
-                    && currentWord[currentWordLength - 2] == 'Q';
-        }
-        return false;
-    }
-
     /**
      * Appends the nextChar to the currentWord. Handles the special 'Qu' case
      *
@@ -201,4 +363,122 @@ public class BoggleSolver {
         return currentWordLength;
     }
 
+    /**
+     * Task solving a range of boards, split in halves until it is not longer than the threshold
+     */
+    private static class SolveTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final BoggleSolver solver;
+        private final BoggleBoard[] boards;
+        private final List<Iterable<String>> results;
+        private final int from;
+        private final int to;
+
+        public SolveTask(BoggleSolver solver, BoggleBoard[] boards,
+                         List<Iterable<String>> results, int from, int to) {
+            this.solver = solver;
+            this.boards = boards;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SOLVE_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    results.set(i, solver.getAllValidWords(boards[i]));
+                }
+            }
+            else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SolveTask(solver, boards, results, from, middle),
+                          new SolveTask(solver, boards, results, middle, to));
+            }
+        }
+    }
+
+    /**
+     * The mutable state of the searches of a thread, reused for the next boards
+     */
+    private static class Scratch {
+        private char[] word = new char[0];
+
+        /**
+         * The size of the board of the neighbour table, 0 if not set yet
+         */
+        private int rows;
+        private int cols;
+
+        /**
+         * The letter of each cell of the board
+         */
+        private final char[] letters = new char[MAX_BITMASK_CELLS];
+
+        /**
+         * The indices of the neighbours of each cell ({@value #MAX_NEIGHBOURS} entries per cell)
+         * and the number of neighbours of each cell. They depend only on the size of the board.
+         */
+        private final int[] neighbours = new int[MAX_BITMASK_CELLS * MAX_NEIGHBOURS];
+        private final int[] neighbourCounts = new int[MAX_BITMASK_CELLS];
+
+        /**
+         * The stack of the iterative search: the cell, the dictionary node, the index of the next
+         * neighbour to try and the length of the current word at each depth
+         */
+        private final int[] cellStack = new int[MAX_BITMASK_CELLS];
+        private final int[] nodeStack = new int[MAX_BITMASK_CELLS];
+        private final int[] nextStack = new int[MAX_BITMASK_CELLS];
+        private final int[] lengthStack = new int[MAX_BITMASK_CELLS];
+
+        /**
+         * Sets the letters of the board (at most {@value #MAX_BITMASK_CELLS} cells), and the
+         * neighbour table if the size of the board changed. The word buffer is made large enough
+         * for the board.
+         *
+         * @param board the board
+         */
+        private void setBoard(BoggleBoard board) {
+            getWord(MAX_BITMASK_CELLS * 2);
+            if (board.rows() != rows || board.cols() != cols) {
+                rows = board.rows();
+                cols = board.cols();
+                for (int row = 0; row < rows; row++) {
+                    for (int col = 0; col < cols; col++) {
+                        int cell = Util.getIndex(row, col, cols);
+                        int count = 0;
+                        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++) {
+                            for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, cols - 1);
+                                 c++) {
+                                if (r != row || c != col) {
+                                    neighbours[cell * MAX_NEIGHBOURS + count++] =
+                                            Util.getIndex(r, c, cols);
+                                }
+                            }
+                        }
+                        neighbourCounts[cell] = count;
+                    }
+                }
+            }
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col++) {
+                    letters[Util.getIndex(row, col, cols)] = board.getLetter(row, col);
+                }
+            }
+        }
+
+        /**
+         * Returns the buffer of the current word, at least of the given length
+         *
+         * @param length the minimum length
+         * @return the buffer
+         */
+        private char[] getWord(int length) {
+            if (word.length < length) {
+                word = new char[length];
+            }
+            return word;
+        }
+    }
 }
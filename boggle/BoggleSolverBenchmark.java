@@ -0,0 +1,67 @@
+import edu.princeton.cs.algs4.In;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark of {@link BoggleSolver#getAllValidWords(BoggleBoard)} on random boards,
+ * parameterized by the size of the board. {@link BoggleSolver#solveAll(List)} is measured solving
+ * {@value #SOLVE_ALL_BOARDS} boards in parallel, with fewer runs ({@value
+ * #SOLVE_ALL_WARMUP_ITERATIONS} warm-up, {@value #SOLVE_ALL_MEASUREMENT_ITERATIONS} measured), as
+ * each run solves all the boards.
+ * <p>
+ * Usage: <code>java BoggleSolverBenchmark dictionary [rowsxcols ...]</code> (default: 4x4 5x5
+ * 10x10)
+ * <p>
+ * The operations are measured by {@link Benchmark} ({@value #WARMUP_ITERATIONS} warm-up, {@value
+ * #MEASUREMENT_ITERATIONS} measured runs).
+ */
+public class BoggleSolverBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 1000;
+    private static final int MEASUREMENT_ITERATIONS = 1000;
+    private static final int SOLVE_ALL_BOARDS = 1000;
+    private static final int SOLVE_ALL_WARMUP_ITERATIONS = 3;
+    private static final int SOLVE_ALL_MEASUREMENT_ITERATIONS = 5;
+    private static final String[] DEFAULT_SIZES = { "4x4", "5x5", "10x10" };
+    private static final Benchmark BENCHMARK =
+            new Benchmark(WARMUP_ITERATIONS, MEASUREMENT_ITERATIONS);
+    private static final Benchmark SOLVE_ALL_BENCHMARK =
+            new Benchmark(SOLVE_ALL_WARMUP_ITERATIONS, SOLVE_ALL_MEASUREMENT_ITERATIONS);
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("No dictionary specified!");
+        }
+        In in = new In(args[0]);
+        List<String> dictionary = new ArrayList<>();
+        while (in.hasNextLine()) {
+            dictionary.add(in.readLine());
+        }
+        in.close();
+
+        String[] sizes = DEFAULT_SIZES;
+        if (args.length > 1) {
+            sizes = new String[args.length - 1];
+            System.arraycopy(args, 1, sizes, 0, sizes.length);
+        }
+
+        Benchmark.printHeader();
+        BoggleSolver solver = new BoggleSolver(dictionary.toArray(new String[0]));
+        for (String size : sizes) {
+            String[] dimensions = size.split("x");
+            BoggleBoard board = new BoggleBoard(Integer.parseInt(dimensions[0]),
+                                                Integer.parseInt(dimensions[1]));
+            BENCHMARK.measure("BoggleSolver.getAllValidWords", size,
+                    () -> solver.getAllValidWords(board).hashCode());
+
+            List<BoggleBoard> boards = new ArrayList<>();
+            for (int i = 0; i < SOLVE_ALL_BOARDS; i++) {
+                boards.add(new BoggleBoard(Integer.parseInt(dimensions[0]),
+                                           Integer.parseInt(dimensions[1])));
+            }
+            SOLVE_ALL_BENCHMARK.measure("BoggleSolver.solveAll(" + SOLVE_ALL_BOARDS + ")", size,
+                    () -> solver.solveAll(boards).size());
+        }
+    }
+}
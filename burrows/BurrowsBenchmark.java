@@ -0,0 +1,113 @@
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+/**
+ * Benchmark of the hot paths of the burrows package, parameterized by the input size: {@link
+ * CircularSuffixArray} construction on random, repetitive and text inputs, {@link BurrowsWheeler}
+ * block encoding/decoding and {@link MoveToFront} encoding/decoding.
+ * <p>
+ * Usage: <code>java BurrowsBenchmark [size ...]</code> (default: 100000 1000000 4000000)
+ * <p>
+ * The operations are measured by {@link Benchmark} ({@value #WARMUP_ITERATIONS} warm-up, {@value
+ * #MEASUREMENT_ITERATIONS} measured runs).
+ */
+public class BurrowsBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+    private static final int[] DEFAULT_SIZES = { 100_000, 1_000_000, 4_000_000 };
+    private static final Benchmark BENCHMARK =
+            new Benchmark(WARMUP_ITERATIONS, MEASUREMENT_ITERATIONS);
+
+    public static void main(String[] args) {
+        int[] sizes = Benchmark.parseSizes(args, DEFAULT_SIZES);
+
+        System.out.format("%-36s %10s %12s %10s\n", "benchmark", "size", "ms/op", "MB/s");
+        for (int size : sizes) {
+            for (Input input : Input.values()) {
+                byte[] s = input.generate(size);
+                measure("CircularSuffixArray/" + input, size,
+                        () -> new CircularSuffixArray(s).index(0));
+            }
+
+            byte[] text = Input.TEXT.generate(size);
+            byte[] last = new byte[size];
+            int first = BurrowsWheeler.encodeBlock(text, size, last);
+            byte[] plain = new byte[size];
+            measure("BurrowsWheeler.encodeBlock", size,
+                    () -> BurrowsWheeler.encodeBlock(text, size, new byte[size]));
+            measure("BurrowsWheeler.decode", size, () -> {
+                BurrowsWheeler.decode(last, size, first, plain, 0);
+                return plain[0];
+            });
+
+            byte[] mtf = new byte[size];
+            byte[] decoded = new byte[size];
+            measure("MoveToFront.encode", size, () -> {
+                MoveToFront.encode(last, mtf);
+                return mtf[0];
+            });
+            measure("MoveToFront.decode", size, () -> {
+                MoveToFront.decode(mtf, decoded);
+                return decoded[0];
+            });
+        }
+    }
+
+    /**
+     * Measures the operation, printing also the throughput
+     *
+     * @param name      the name of the benchmark
+     * @param size      the size of the input in bytes
+     * @param operation the operation to measure
+     */
+    private static void measure(String name, int size, IntSupplier operation) {
+        double msPerOp = BENCHMARK.time(operation);
+        System.out.format("%-36s %10d %12.3f %10.1f\n", name, size, msPerOp,
+                          size / 1e3 / msPerOp);
+    }
+
+    /**
+     * Generated inputs
+     */
+    private enum Input {
+        RANDOM,
+        REPETITIVE,
+        TEXT;
+
+        private static final String[] WORDS = {
+                "the", "of", "and", "a", "to", "in", "is", "you", "that", "it", "he", "was", "for",
+                "on", "are", "as", "with", "his", "they", "I", "at", "be", "this", "have", "from",
+                "INFO", "WARN", "request", "served", "burrows", "wheeler", "transform"
+        };
+
+        private byte[] generate(int size) {
+            Random random = new Random(size);
+            byte[] s = new byte[size];
+            switch (this) {
+                case RANDOM:
+                    random.nextBytes(s);
+                    break;
+                case REPETITIVE:
+                    // the same log line over and over, like in log files
+                    byte[] line = "2019-01-01 12:00:00 INFO request served in 12 ms\n".getBytes();
+                    for (int i = 0; i < size; i++) {
+                        s[i] = line[i % line.length];
+                    }
+                    break;
+                default:
+                    int i = 0;
+                    while (i < size) {
+                        String word = WORDS[random.nextInt(WORDS.length)];
+                        for (int j = 0; j < word.length() && i < size; j++) {
+                            s[i++] = (byte) word.charAt(j);
+                        }
+                        if (i < size) {
+                            s[i++] = (byte) (random.nextInt(10) == 0 ? '\n' : ' ');
+                        }
+                    }
+            }
+            return s;
+        }
+    }
+}
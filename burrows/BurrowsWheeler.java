@@ -1,20 +1,66 @@
 import edu.princeton.cs.algs4.BinaryStdIn;
 import edu.princeton.cs.algs4.BinaryStdOut;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 public class BurrowsWheeler {
 
     private static final int MAX_BYTE_VALUE = 255;
     private static final int RADIX = 256;
 
+    /**
+     * Minimum size of a block in block mode (like bzip2 -1)
+     */
+    public static final int MIN_BLOCK_SIZE = 100 * 1024;
+
+    /**
+     * Maximum size of a block in block mode
+     */
+    public static final int MAX_BLOCK_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * Default size of a block in block mode (like bzip2 -9)
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 900 * 1024;
+
+    /**
+     * Maximum number of interleaved decoding chains of a block
+     */
+    public static final int MAX_CHAINS = 8;
+
+    /**
+     * Flag in the length field of the block header: the header is extended with the start rows
+     * of the interleaved decoding chains
+     */
+    private static final int INTERLEAVED_FLAG = 1 << 30;
+
     /**
      * <p>Apply Burrows-Wheeler transform, reading from standard input and writing to standard
      * output
      * <p>if args[0] is '-', apply Burrows-Wheeler transform
      * <p>if args[0] is '+', apply Burrows-Wheeler inverse transform
+     * <p>if args[0] is '-b', apply Burrows-Wheeler transform block by block, args[1] is the
+     * optional block size in bytes (default: {@value #DEFAULT_BLOCK_SIZE}), args[2] is the
+     * optional number of interleaved decoding chains (default: 1, maximum: {@value #MAX_CHAINS})
+     * <p>if args[0] is '+b', apply Burrows-Wheeler inverse transform block by block
+     * <p>if args[0] is '-f', apply Burrows-Wheeler transform block by block on memory-mapped
+     * files, args[1] is the input file, args[2] is the output file, args[3] is the optional block
+     * size and args[4] is the optional number of interleaved decoding chains
+     * <p>if args[0] is '+f', apply Burrows-Wheeler inverse transform block by block on
+     * memory-mapped files, args[1] is the input file, args[2] is the output file
      *
-     * @param args program arguments: first argument is + for decoding, - for encoding
+     * @param args program arguments: first argument is + for decoding, - for encoding, +b/-b for
+     *             decoding/encoding in block mode, +f/-f for decoding/encoding memory-mapped
+     *             files in block mode, followed by the arguments of the mode
      */
     public static void main(String[] args) {
 
@@ -29,8 +75,25 @@ public class BurrowsWheeler {
             case "+":
                 inverseTransform();
                 break;
+            case "-b":
+                transform(args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_BLOCK_SIZE,
+                          args.length > 2 ? Integer.parseInt(args[2]) : 1);
+                break;
+            case "+b":
+                inverseTransformBlocks();
+                break;
+            case "-f":
+                checkFileArguments(args);
+                transform(Paths.get(args[1]), Paths.get(args[2]),
+                          args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_BLOCK_SIZE,
+                          args.length > 4 ? Integer.parseInt(args[4]) : 1);
+                break;
+            case "+f":
+                checkFileArguments(args);
+                inverseTransform(Paths.get(args[1]), Paths.get(args[2]));
+                break;
             default:
-                throw new IllegalArgumentException("Only + or - is allowed!");
+                throw new IllegalArgumentException("Only +, -, +b, -b, +f or -f is allowed!");
         }
     }
 
@@ -41,26 +104,15 @@ public class BurrowsWheeler {
      * first in which the original string ends up.
      */
     public static void transform() {
-        String s = BinaryStdIn.readString();
-        CircularSuffixArray csa = new CircularSuffixArray(s);
-
-        int length = csa.length();
+        byte[] s = readAllBytes();
+        byte[] last = new byte[s.length];
 
-        int[] index = new int[length];
-
-        int first = -1;
-        for (int i = 0; i < length; i++) {
-            int currentIndex = csa.index(i);
-            index[i] = currentIndex;
-            if (currentIndex == 0) {
-                first = i;
-            }
-        }
+        int first = encodeBlock(s, s.length, last);
 
         BinaryStdOut.write(first);
 
-        for (int i = 0; i < s.length(); i++) {
-            BinaryStdOut.write((byte) (getLastCharOfStringAtIndex(s, index[i]) & MAX_BYTE_VALUE));
+        for (int i = 0; i < last.length; i++) {
+            BinaryStdOut.write(last[i]);
         }
 
         BinaryStdOut.close();
@@ -74,141 +126,687 @@ public class BurrowsWheeler {
 
         int first = BinaryStdIn.readInt();
 
-        char[] t = BinaryStdIn.readString().toCharArray();
+        byte[] t = readAllBytes();
 
-        // the firsts array contains the characters of t in sorted order
-        char[] plain = decode(t, first);
+        byte[] plain = decode(t, first);
 
         for (int i = 0; i < plain.length; i++) {
-            BinaryStdOut.write((byte) (plain[i] & MAX_BYTE_VALUE));
+            BinaryStdOut.write(plain[i]);
         }
 
         BinaryStdOut.close();
     }
 
-    private static char getLastCharOfStringAtIndex(String s, int index) {
-        return s.charAt((index + s.length() - 1) % s.length());
+    /**
+     * Burrows–Wheeler transform of the remaining bytes of <code>in</code>. The row number first
+     * (int) and the last column of the sorted suffixes are written to <code>out</code>, which must
+     * have at least <code>in.remaining() + 4</code> bytes remaining.
+     *
+     * @param in  the input buffer, its position is advanced to its limit
+     * @param out the output buffer, its position is advanced by the number of bytes written
+     */
+    public static void transform(ByteBuffer in, ByteBuffer out) {
+        if (in == null || out == null) {
+            throw new IllegalArgumentException();
+        }
+        int length = in.remaining();
+        if (out.remaining() < length + Integer.BYTES) {
+            throw new IllegalArgumentException(
+                    String.format("Output buffer too small: %d, required: %d", out.remaining(),
+                                  length + Integer.BYTES));
+        }
+        byte[] s = new byte[length];
+        in.get(s);
+
+        byte[] last = new byte[length];
+        int first = encodeBlock(s, length, last);
+
+        out.putInt(first);
+        out.put(last);
     }
 
     /**
-     * Decodes the encoded char array using the value first
+     * Burrows-Wheeler inverse transform of the remaining bytes of <code>in</code> (the row number
+     * first followed by the last column, as written by {@link #transform(ByteBuffer,
+     * ByteBuffer)}). The decoded bytes are written to <code>out</code>, which must have at least
+     * <code>in.remaining() - 4</code> bytes remaining.
      *
-     * @param t     the encoded array
-     * @param first the first value provided by the encoder
-     * @return the decoded array
+     * @param in  the input buffer, its position is advanced to its limit
+     * @param out the output buffer, its position is advanced by the number of bytes written
      */
-    private static char[] decode(char[] t, int first) {
+    public static void inverseTransform(ByteBuffer in, ByteBuffer out) {
+        if (in == null || out == null || in.remaining() < Integer.BYTES) {
+            throw new IllegalArgumentException();
+        }
+        int first = in.getInt();
+        int length = in.remaining();
+        if (out.remaining() < length) {
+            throw new IllegalArgumentException(
+                    String.format("Output buffer too small: %d, required: %d", out.remaining(),
+                                  length));
+        }
+        byte[] t = new byte[length];
+        in.get(t);
 
-        SortResult sr = sort(t);
+        if (out.hasArray()) {
+            decode(t, length, first, out.array(), out.arrayOffset() + out.position());
+            out.position(out.position() + length);
+        }
+        else {
+            out.put(decode(t, first));
+        }
+    }
 
-        int[] next = getNext(t, sr.sorted, sr.freq);
+    /**
+     * Burrows–Wheeler transform in block mode. The input is split into blocks of
+     * <code>blockSize</code> bytes (the last block may be shorter) and each block is transformed
+     * independently, so the memory used does not depend on the size of the input.
+     * <p>
+     * Each block is written as a block header: the length of the block (int) and the row number
+     * first (int), followed by the last column of the sorted suffixes (length bytes).
+     *
+     * @param blockSize the size of the blocks, between {@value #MIN_BLOCK_SIZE} and {@value
+     *                  #MAX_BLOCK_SIZE}
+     */
+    public static void transform(int blockSize) {
+        transform(blockSize, 1);
+    }
 
-        char[] output = new char[t.length];
-        int current = first;
-        for (int i = 0; i < output.length; i++) {
-            output[i] = sr.sorted[current];
-            current = next[current];
+    /**
+     * Burrows–Wheeler transform in block mode, see {@link #transform(int)}.
+     * <p>
+     * When <code>chains</code> is more than one, the block header is extended to let the decoder
+     * walk several independent chains of the next array interleaved, see {@link
+     * #writeBlockHeader(int, int[])}.
+     *
+     * @param blockSize the size of the blocks, between {@value #MIN_BLOCK_SIZE} and {@value
+     *                  #MAX_BLOCK_SIZE}
+     * @param chains    the number of decoding chains per block, between 1 and {@value
+     *                  #MAX_CHAINS}
+     */
+    public static void transform(int blockSize, int chains) {
+        if (blockSize < MIN_BLOCK_SIZE || blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException(
+                    String.format("Block size: %d is out of range [%d,%d]", blockSize,
+                                  MIN_BLOCK_SIZE, MAX_BLOCK_SIZE));
+        }
+        if (chains < 1 || chains > MAX_CHAINS) {
+            throw new IllegalArgumentException(
+                    String.format("Chains: %d is out of range [%d,%d]", chains, 1, MAX_CHAINS));
         }
 
-        return output;
+        byte[] block = new byte[blockSize];
+        byte[] last = new byte[blockSize];
+
+        int length;
+        while ((length = readBlock(block)) > 0) {
+            int[] starts = new int[getChainCount(length, chains)];
+            encodeBlock(block, length, last, starts);
+
+            writeBlockHeader(length, starts);
+            for (int i = 0; i < length; i++) {
+                BinaryStdOut.write(last[i]);
+            }
+        }
+
+        BinaryStdOut.close();
+    }
+
+    /**
+     * Burrows-Wheeler inverse transform in block mode, reading the blocks written by {@link
+     * #transform(int, int)} from standard input and writing the decoded blocks to standard output
+     */
+    public static void inverseTransformBlocks() {
+
+        byte[] t = new byte[0];
+        byte[] plain = new byte[0];
+
+        while (!BinaryStdIn.isEmpty()) {
+            BlockHeader header = readBlockHeader();
+            int length = header.length;
+
+            if (t.length != length) {
+                t = new byte[length];
+                plain = new byte[length];
+            }
+            int read = readBlock(t);
+            if (read != length) {
+                throw new IllegalArgumentException(
+                        String.format("Truncated block, length: %d, remaining: %d", length, read));
+            }
+
+            decode(t, length, header.starts, plain, 0);
+
+            for (int i = 0; i < length; i++) {
+                BinaryStdOut.write(plain[i]);
+            }
+        }
+
+        BinaryStdOut.close();
     }
 
     /**
-     * LSD Radix sort & frequency counting of the 8-bit alphabet
+     * Burrows–Wheeler transform in block mode from the input file to the output file, the format
+     * of the output is the same as of {@link #transform(int, int)}.
+     * <p>
+     * The files are mapped into memory in windows of up to 2 GB (see {@link MappedFile}) and the
+     * blocks are slices of the windows, without the per byte calls of the standard input/output.
+     * The suffix sorter needs random access to the block, so each slice is copied into the block
+     * array, and the last column into the slice of the output.
      *
-     * @param a character array
-     * @return sorted character array
+     * @param input     the input file
+     * @param output    the output file, created or truncated
+     * @param blockSize the size of the blocks, between {@value #MIN_BLOCK_SIZE} and {@value
+     *                  #MAX_BLOCK_SIZE}
+     * @param chains    the number of decoding chains per block, between 1 and {@value
+     *                  #MAX_CHAINS}
      */
-    private static SortResult sort(char[] a) {
-        int n = a.length;
-        int radix = RADIX;   // extend ASCII alphabet size
-        char[] aux = new char[n];
-        int[] freq = new int[radix];
+    public static void transform(Path input, Path output, int blockSize, int chains) {
+        if (blockSize < MIN_BLOCK_SIZE || blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException(
+                    String.format("Block size: %d is out of range [%d,%d]", blockSize,
+                                  MIN_BLOCK_SIZE, MAX_BLOCK_SIZE));
+        }
+        if (chains < 1 || chains > MAX_CHAINS) {
+            throw new IllegalArgumentException(
+                    String.format("Chains: %d is out of range [%d,%d]", chains, 1, MAX_CHAINS));
+        }
 
-        // compute frequency counts
-        int[] count = new int[radix + 1];
-        for (int i = 0; i < n; i++) {
-            count[a[i] + 1]++;
-            freq[a[i]]++;
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.READ,
+                                                StandardOpenOption.WRITE,
+                                                StandardOpenOption.CREATE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            byte[] block = new byte[blockSize];
+            byte[] last = new byte[blockSize];
+
+            long size = in.size();
+            MappedFile plain = new MappedFile(in, FileChannel.MapMode.READ_ONLY, size);
+            MappedFile encoded = new MappedFile(out, FileChannel.MapMode.READ_WRITE,
+                                                getEncodedSize(size, blockSize, chains));
+
+            long outPosition = 0;
+            for (long position = 0; position < size; position += blockSize) {
+                int length = (int) Math.min(blockSize, size - position);
+                plain.slice(position, length).get(block, 0, length);
+
+                int[] starts = new int[getChainCount(length, chains)];
+                encodeBlock(block, length, last, starts);
+
+                int encodedLength = getBlockHeaderLength(starts.length) + length;
+                ByteBuffer slice = encoded.slice(outPosition, encodedLength);
+                putBlockHeader(slice, length, starts);
+                slice.put(last, 0, length);
+                outPosition += encodedLength;
+            }
         }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        // compute cumulates
-        for (int r = 0; r < radix; r++)
-            count[r + 1] += count[r];
+    /**
+     * Burrows-Wheeler inverse transform in block mode from the input file (written by {@link
+     * #transform(Path, Path, int, int)} or {@link #transform(int, int)}) to the output file.
+     * <p>
+     * The block headers are read and validated first, to size the output file. The files are
+     * mapped into memory in windows like in {@link #transform(Path, Path, int, int)}, the decoder
+     * walks the next array over the whole block, so each slice is copied into an array.
+     *
+     * @param input  the input file
+     * @param output the output file, created or truncated
+     */
+    public static void inverseTransform(Path input, Path output) {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.READ,
+                                                StandardOpenOption.WRITE,
+                                                StandardOpenOption.CREATE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            long size = in.size();
+            MappedFile encoded = new MappedFile(in, FileChannel.MapMode.READ_ONLY, size);
+
+            List<BlockHeader> headers = getBlockHeaders(encoded, size);
+            long decodedSize = 0;
+            for (BlockHeader header : headers) {
+                decodedSize += header.length;
+            }
+            MappedFile decoded = new MappedFile(out, FileChannel.MapMode.READ_WRITE, decodedSize);
 
-        // move data
-        for (int i = 0; i < n; i++)
-            aux[count[a[i]]++] = a[i];
+            byte[] t = new byte[0];
+            byte[] plain = new byte[0];
 
-        return new SortResult(aux, freq);
+            long position = 0;
+            long outPosition = 0;
+            for (BlockHeader header : headers) {
+                int length = header.length;
+                position += getBlockHeaderLength(header.starts.length);
 
+                if (t.length != length) {
+                    t = new byte[length];
+                    plain = new byte[length];
+                }
+                encoded.slice(position, length).get(t, 0, length);
+                position += length;
+
+                decode(t, length, header.starts, plain, 0);
+
+                decoded.slice(outPosition, length).put(plain, 0, length);
+                outPosition += length;
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     /**
-     * Returns the next character for the BW decoder algorithm
+     * Returns the size of the output of {@link #transform(Path, Path, int, int)}: the blocks and
+     * their headers
      *
-     * @param t      the last character of the suffix array
-     * @param firsts the first character of the suffix array
-     * @param freq   the frequency count of the alphabet
-     * @return the "next" array for the BW decoder
+     * @param size      the size of the input
+     * @param blockSize the size of the blocks
+     * @param chains    the number of decoding chains per block
+     * @return the size of the output
+     */
+    private static long getEncodedSize(long size, int blockSize, int chains) {
+        long encodedSize = size;
+        for (long position = 0; position < size; position += blockSize) {
+            int length = (int) Math.min(blockSize, size - position);
+            encodedSize += getBlockHeaderLength(getChainCount(length, chains));
+        }
+        return encodedSize;
+    }
+
+    /**
+     * Gets and validates the headers of all the blocks of the mapped file
+     * <p>
+     * Throw a java.lang.IllegalArgumentException if a header is invalid or a block is truncated.
+     *
+     * @param encoded the mapped file written by {@link #transform(Path, Path, int, int)}
+     * @param size    the size of the file
+     * @return the block headers in the order of the blocks
+     * @throws IOException if the file cannot be mapped
+     */
+    private static List<BlockHeader> getBlockHeaders(MappedFile encoded, long size)
+            throws IOException {
+        List<BlockHeader> headers = new ArrayList<>();
+        long position = 0;
+        while (position < size) {
+            // the header is at most getBlockHeaderLength(MAX_CHAINS) long
+            int headerLength = (int) Math.min(getBlockHeaderLength(MAX_CHAINS), size - position);
+            BlockHeader header = getBlockHeader(encoded.slice(position, headerLength));
+            int length = header.length;
+            position += getBlockHeaderLength(header.starts.length);
+            if (length > size - position) {
+                throw new IllegalArgumentException(
+                        String.format("Truncated block, length: %d, remaining: %d", length,
+                                      size - position));
+            }
+            position += length;
+            headers.add(header);
+        }
+        return headers;
+    }
+
+    /**
+     * Checks the input and output file arguments of the file mode
+     *
+     * @param args program arguments
      */
-    private static int[] getNext(char[] t, char[] firsts, int[] freq) {
-        int[] next = new int[t.length];
+    static void checkFileArguments(String[] args) {
+        if (args.length < 3) {
+            throw new IllegalArgumentException("No input and output file specified!");
+        }
+    }
 
-        int[][] loc = new int[256][0];
-        int[] used = new int[256];
-        for (int i = 0; i < freq.length; i++) {
-            int frequencyOfCharI = freq[i];
-            if (frequencyOfCharI > 0) {
+    /**
+     * Writes the block header to standard output, see {@link #putBlockHeader(ByteBuffer, int,
+     * int[])}
+     *
+     * @param length the length of the block
+     * @param starts the start rows of the chains, starts[0] is first
+     */
+    static void writeBlockHeader(int length, int[] starts) {
+        ByteBuffer header = ByteBuffer.allocate(getBlockHeaderLength(starts.length));
+        putBlockHeader(header, length, starts);
+        for (byte b : header.array()) {
+            BinaryStdOut.write(b);
+        }
+    }
 
-                loc[i] = new int[frequencyOfCharI];
+    /**
+     * Reads and validates the block header written by {@link #writeBlockHeader(int, int[])} from
+     * standard input
+     *
+     * @return the {@link BlockHeader}
+     */
+    static BlockHeader readBlockHeader() {
+        int length = BinaryStdIn.readInt();
+        int first = BinaryStdIn.readInt();
+
+        int chains = 1;
+        if ((length & INTERLEAVED_FLAG) != 0) {
+            chains = Byte.toUnsignedInt(BinaryStdIn.readByte());
+            checkInterleavedChains(length & ~INTERLEAVED_FLAG, chains);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(getBlockHeaderLength(chains));
+        header.putInt(length).putInt(first);
+        if (chains > 1) {
+            header.put((byte) chains);
+            while (header.hasRemaining()) {
+                header.putInt(BinaryStdIn.readInt());
             }
         }
-        for (int i = 0; i < t.length; i++) {
-            char c = t[i];
-            int usedCharCount = used[c]++;
-            loc[c][usedCharCount] = i;
+        header.flip();
+        return getBlockHeader(header);
+    }
+
+    /**
+     * Puts the block header into the buffer: the length of the block (int) and the row number
+     * first (int).
+     * <p>
+     * With more than one chain the {@link #INTERLEAVED_FLAG} is set in the length and the header is
+     * extended with the number of chains k (byte) and the rows of the circular suffixes starting at
+     * offsets j * ceil(length / k) for j = 1..k-1 (int each).
+     *
+     * @param buffer the buffer to put the header into
+     * @param length the length of the block
+     * @param starts the start rows of the chains, starts[0] is first
+     */
+    static void putBlockHeader(ByteBuffer buffer, int length, int[] starts) {
+        if (starts.length == 1) {
+            buffer.putInt(length);
+            buffer.putInt(starts[0]);
+        }
+        else {
+            buffer.putInt(length | INTERLEAVED_FLAG);
+            buffer.putInt(starts[0]);
+            buffer.put((byte) starts.length);
+            for (int j = 1; j < starts.length; j++) {
+                buffer.putInt(starts[j]);
+            }
         }
+    }
 
-        Arrays.fill(used, 0);
+    /**
+     * Gets and validates the block header put by {@link #putBlockHeader(ByteBuffer, int, int[])}
+     *
+     * @param buffer the buffer to get the header from
+     * @return the {@link BlockHeader}
+     */
+    static BlockHeader getBlockHeader(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        int first = buffer.getInt();
+
+        int chains = 1;
+        if ((length & INTERLEAVED_FLAG) != 0) {
+            length &= ~INTERLEAVED_FLAG;
+            chains = Byte.toUnsignedInt(buffer.get());
+            checkInterleavedChains(length, chains);
+        }
+        if (length <= 0 || length > MAX_BLOCK_SIZE || chains < 1 || chains > MAX_CHAINS
+                || chains != getChainCount(length, chains)) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid block header, length: %d, chains: %d", length, chains));
+        }
 
-        for (int i = 0; i < firsts.length; i++) {
-            char c = firsts[i];
-            int firstPos = loc[c][used[c]++];
-            next[i] = firstPos;
+        int[] starts = new int[chains];
+        starts[0] = first;
+        for (int j = 1; j < chains; j++) {
+            starts[j] = buffer.getInt();
+        }
+        for (int start : starts) {
+            if (start < 0 || start >= length) {
+                throw new IllegalArgumentException(
+                        String.format("Invalid block header, length: %d, start row: %d", length,
+                                      start));
+            }
         }
+        return new BlockHeader(length, starts);
+    }
 
-        return next;
+    /**
+     * Checks the number of chains of a block header with the {@link #INTERLEAVED_FLAG} set, before
+     * the start rows of the chains are read
+     *
+     * @param length the length of the block
+     * @param chains the number of chains, between 2 and {@value #MAX_CHAINS}
+     */
+    private static void checkInterleavedChains(int length, int chains) {
+        if (chains < 2 || chains > MAX_CHAINS) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid block header, length: %d, chains: %d", length, chains));
+        }
+    }
+
+    /**
+     * Returns the length of the block header in bytes
+     *
+     * @param chains the number of chains of the block
+     * @return the length of the block header
+     */
+    static int getBlockHeaderLength(int chains) {
+        int length = 2 * Integer.BYTES;
+        if (chains > 1) {
+            length += 1 + (chains - 1) * Integer.BYTES;
+        }
+        return length;
+    }
+
+    /**
+     * Returns the number of chains usable for a block: every chain has to start inside the block
+     *
+     * @param length the length of the block
+     * @param chains the requested number of chains
+     * @return the number of chains, at most <code>chains</code>
+     */
+    static int getChainCount(int length, int chains) {
+        int count = Math.min(chains, length);
+        while (count > 1 && (count - 1) * getSegmentLength(length, count) >= length) {
+            count--;
+        }
+        return count;
     }
 
     /**
-     * Result of sorting and frequency counting
+     * Returns the number of bytes decoded by one chain (the last chain may decode less)
+     *
+     * @param length the length of the block
+     * @param chains the number of chains
+     * @return ceil(length / chains)
      */
-    private static class SortResult {
-        char[] sorted;
-        int[] freq;
+    private static int getSegmentLength(int length, int chains) {
+        return (length + chains - 1) / chains;
+    }
 
-        public SortResult(char[] sorted, int[] freq) {
-            this.sorted = sorted;
-            this.freq = freq;
+    /**
+     * Reads the next block from standard input
+     *
+     * @param block the buffer of the block
+     * @return the number of bytes read, less than the length of the buffer only at the end of
+     * the input
+     */
+    private static int readBlock(byte[] block) {
+        int length = 0;
+        while (length < block.length && !BinaryStdIn.isEmpty()) {
+            block[length++] = BinaryStdIn.readByte();
         }
+        return length;
+    }
+
+    /**
+     * Applies the Burrows–Wheeler transform on one block
+     *
+     * @param block  the block
+     * @param length the number of bytes used in the block
+     * @param last   the array to store the last column of the sorted suffixes into
+     * @return the row number first in which the original block ends up
+     */
+    static int encodeBlock(byte[] block, int length, byte[] last) {
+        int[] starts = { -1 };
+        encodeBlock(block, length, last, starts);
+        return starts[0];
+    }
 
-        @Override
-        public String toString() {
+    /**
+     * Applies the Burrows–Wheeler transform on one block, recording the start rows of
+     * <code>starts.length</code> interleaved decoding chains: starts[j] is the row of the circular
+     * suffix starting at offset j * ceil(length / starts.length), so starts[0] is first.
+     *
+     * @param block  the block
+     * @param length the number of bytes used in the block
+     * @param last   the array to store the last column of the sorted suffixes into
+     * @param starts the array to store the start rows of the chains into
+     */
+    static void encodeBlock(byte[] block, int length, byte[] last, int[] starts) {
+        byte[] s = length == block.length ? block : Arrays.copyOf(block, length);
+        CircularSuffixArray csa = new CircularSuffixArray(s);
+        int segmentLength = getSegmentLength(length, starts.length);
 
-            StringBuilder sb = new StringBuilder();
-            for (int i = 0; i < 256; i++) {
-                if (freq[i] > 0) {
-                    sb.append("" + (char) i + ":" + freq[i] + ", ");
-                }
+        for (int i = 0; i < length; i++) {
+            int currentIndex = csa.index(i);
+            if (currentIndex % segmentLength == 0) {
+                starts[currentIndex / segmentLength] = i;
             }
+            last[i] = s[(currentIndex + length - 1) % length];
+        }
+    }
 
+    /**
+     * Header of a block in block mode
+     */
+    static class BlockHeader {
+        final int length;
+        final int[] starts;
+
+        public BlockHeader(int length, int[] starts) {
+            this.length = length;
+            this.starts = starts;
+        }
+    }
 
-            return "SortResult{" +
-                    "sorted=" + Arrays.toString(sorted) +
-                    ", freq=" + sb +
-                    '}';
+    /**
+     * Reads all the remaining bytes from standard input
+     *
+     * @return the bytes read
+     */
+    private static byte[] readAllBytes() {
+        byte[] bytes = new byte[MIN_BLOCK_SIZE];
+        int length = 0;
+        while (!BinaryStdIn.isEmpty()) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, 2 * bytes.length);
+            }
+            bytes[length++] = BinaryStdIn.readByte();
         }
+        return Arrays.copyOf(bytes, length);
+    }
+
+    /**
+     * Decodes the encoded byte array using the value first
+     *
+     * @param t     the encoded array
+     * @param first the first value provided by the encoder
+     * @return the decoded array
+     */
+    static byte[] decode(byte[] t, int first) {
+        byte[] output = new byte[t.length];
+        decode(t, t.length, first, output, 0);
+        return output;
+    }
+
+    /**
+     * Decodes <code>t[0..length-1]</code> using the value first, writing the decoded bytes
+     * straight to <code>output[offset..offset+length-1]</code>.
+     * <p>
+     * The first column of the sorted suffixes is not materialized: the first character of row i
+     * is the last character of row next[i], so following the LF-mapping from first gives the
+     * decoded bytes directly from t. The only auxiliary memory is the next array.
+     *
+     * @param t      the encoded array (last column)
+     * @param length the number of bytes used in t
+     * @param first  the first value provided by the encoder
+     * @param output the array to write the decoded bytes into
+     * @param offset the position in output to start writing from
+     */
+    static void decode(byte[] t, int length, int first, byte[] output, int offset) {
+        int[] next = getNext(t, length);
+
+        int current = first;
+        for (int i = offset; i < offset + length; i++) {
+            current = next[current];
+            output[i] = t[current];
+        }
+    }
+
+    /**
+     * Decodes <code>t[0..length-1]</code> walking the chains of the next array from the given
+     * start rows (see {@link #encodeBlock(byte[], int, byte[], int[])}), writing the decoded bytes
+     * to <code>output[offset..offset+length-1]</code>.
+     * <p>
+     * Each step of a chain is a random access into next and t, which misses the cache for blocks
+     * larger than the cache. The chains are independent, so stepping them interleaved lets the
+     * memory accesses of the different chains overlap instead of waiting for each one in turn.
+     *
+     * @param t      the encoded array (last column)
+     * @param length the number of bytes used in t
+     * @param starts the start rows of the chains, starts[0] is first
+     * @param output the array to write the decoded bytes into
+     * @param offset the position in output to start writing from
+     */
+    static void decode(byte[] t, int length, int[] starts, byte[] output, int offset) {
+        int chains = starts.length;
+        if (chains == 1) {
+            decode(t, length, starts[0], output, offset);
+            return;
+        }
+
+        int[] next = getNext(t, length);
+        int segmentLength = getSegmentLength(length, chains);
+        // all the chains are stepped together while the last (shortest) chain lasts
+        int lastSegmentLength = length - (chains - 1) * segmentLength;
+
+        int[] current = starts.clone();
+        for (int step = 0; step < segmentLength; step++) {
+            int activeChains = step < lastSegmentLength ? chains : chains - 1;
+            int position = offset + step;
+            for (int j = 0; j < activeChains; j++) {
+                int c = next[current[j]];
+                current[j] = c;
+                output[position] = t[c];
+                position += segmentLength;
+            }
+        }
+    }
+
+    /**
+     * Returns the next array for the BW decoder algorithm, computed by key-indexed counting of the
+     * last column: the ith occurrence of character c in t belongs to the ith row starting with c.
+     *
+     * @param t      the last column of the sorted suffixes
+     * @param length the number of bytes used in t
+     * @return the "next" array for the BW decoder
+     */
+    private static int[] getNext(byte[] t, int length) {
+        // compute frequency counts
+        int[] count = new int[RADIX + 1];
+        for (int i = 0; i < length; i++) {
+            count[(t[i] & MAX_BYTE_VALUE) + 1]++;
+        }
+
+        // compute cumulates: count[c] is the first row starting with c
+        for (int r = 0; r < RADIX; r++) {
+            count[r + 1] += count[r];
+        }
+
+        int[] next = new int[length];
+        for (int i = 0; i < length; i++) {
+            next[count[t[i] & MAX_BYTE_VALUE]++] = i;
+        }
+        return next;
     }
 
 }
\ No newline at end of file
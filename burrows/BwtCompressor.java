@@ -0,0 +1,333 @@
+import edu.princeton.cs.algs4.BinaryStdIn;
+import edu.princeton.cs.algs4.BinaryStdOut;
+
+import java.util.zip.CRC32;
+
+/**
+ * In-process Burrows-Wheeler compressor: each block flows through the Burrows-Wheeler transform,
+ * move-to-front encoding, the optional {@link ZeroRunLength} coding and canonical Huffman coding in
+ * memory, instead of chaining the separate programs through standard input/output.
+ * <p>
+ * Container format:
+ * <ul>
+ * <li>stream header: magic {@value #MAGIC} (int), block size (int)</li>
+ * <li>blocks, each preceded by the {@value #BLOCK_MARKER} marker (byte), see {@link
+ * #writeBlock(Block)}</li>
+ * <li>the {@value #END_MARKER} end marker (byte)</li>
+ * </ul>
+ */
+public class BwtCompressor {
+
+    /**
+     * "BWZ1"
+     */
+    private static final int MAGIC = 0x42575A31;
+    private static final int BLOCK_MARKER = 1;
+    private static final int END_MARKER = 0;
+    private static final int MAX_BYTE_VALUE = 255;
+
+    /**
+     * Number of symbols of the move-to-front output
+     */
+    private static final int ALPHABET_SIZE = 256;
+
+    /**
+     * Block flag: the move-to-front output is {@link ZeroRunLength} coded
+     */
+    private static final int FLAG_ZERO_RUN_LENGTH = 1;
+
+    /**
+     * <p>if args[0] is '-', compress standard input to standard output, args[1] is the optional
+     * block size
+     * <p>if args[0] is '-n', compress standard input to standard output without the zero
+     * run-length stage, args[1] is the optional block size
+     * <p>if args[0] is '+', decompress standard input to standard output
+     *
+     * @param args program arguments
+     */
+    public static void main(String[] args) {
+
+        if (args.length == 0) {
+            throw new IllegalArgumentException("No flag (- or +) specified!");
+        }
+        String flag = args[0];
+        switch (flag) {
+            case "-":
+            case "-n":
+                compress(args.length > 1
+                         ? Integer.parseInt(args[1])
+                         : BurrowsWheeler.DEFAULT_BLOCK_SIZE,
+                         "-".equals(flag));
+                break;
+            case "+":
+                decompress();
+                break;
+            default:
+                throw new IllegalArgumentException("Only +, - or -n is allowed!");
+        }
+    }
+
+    /**
+     * Compresses standard input to standard output
+     *
+     * @param blockSize the size of the blocks, between {@value BurrowsWheeler#MIN_BLOCK_SIZE} and
+     *                  {@value BurrowsWheeler#MAX_BLOCK_SIZE}
+     */
+    public static void compress(int blockSize) {
+        compress(blockSize, true);
+    }
+
+    /**
+     * Compresses standard input to standard output
+     *
+     * @param blockSize     the size of the blocks, between {@value BurrowsWheeler#MIN_BLOCK_SIZE}
+     *                      and {@value BurrowsWheeler#MAX_BLOCK_SIZE}
+     * @param zeroRunLength true to apply the {@link ZeroRunLength} coding on the move-to-front
+     *                      output
+     */
+    public static void compress(int blockSize, boolean zeroRunLength) {
+        if (blockSize < BurrowsWheeler.MIN_BLOCK_SIZE
+                || blockSize > BurrowsWheeler.MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException(
+                    String.format("Block size: %d is out of range [%d,%d]", blockSize,
+                                  BurrowsWheeler.MIN_BLOCK_SIZE, BurrowsWheeler.MAX_BLOCK_SIZE));
+        }
+
+        BinaryStdOut.write(MAGIC);
+        BinaryStdOut.write(blockSize);
+
+        byte[] block = new byte[blockSize];
+        int length;
+        while ((length = readBlock(block)) > 0) {
+            BinaryStdOut.write((byte) BLOCK_MARKER);
+            writeBlock(compressBlock(block, length, zeroRunLength));
+        }
+        BinaryStdOut.write((byte) END_MARKER);
+
+        BinaryStdOut.close();
+    }
+
+    /**
+     * Decompresses standard input to standard output
+     */
+    public static void decompress() {
+        if (BinaryStdIn.readInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a compressed stream!");
+        }
+        int blockSize = BinaryStdIn.readInt();
+        if (blockSize < BurrowsWheeler.MIN_BLOCK_SIZE
+                || blockSize > BurrowsWheeler.MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("Invalid block size: " + blockSize);
+        }
+
+        byte[] plain = new byte[blockSize];
+        int marker;
+        while ((marker = Byte.toUnsignedInt(BinaryStdIn.readByte())) == BLOCK_MARKER) {
+            Block compressed = readBlock(blockSize);
+            decompressBlock(compressed, plain);
+            for (int i = 0; i < compressed.length; i++) {
+                BinaryStdOut.write(plain[i]);
+            }
+        }
+        if (marker != END_MARKER) {
+            throw new IllegalArgumentException("Invalid block marker: " + marker);
+        }
+
+        BinaryStdOut.close();
+    }
+
+    /**
+     * Compresses one block: BWT, MTF, optionally zero run-length, then Huffman coding
+     *
+     * @param block         the block
+     * @param length        the number of bytes used in the block
+     * @param zeroRunLength true to apply the {@link ZeroRunLength} coding
+     * @return the compressed {@link Block}
+     */
+    static Block compressBlock(byte[] block, int length, boolean zeroRunLength) {
+        CRC32 crc = new CRC32();
+        crc.update(block, 0, length);
+
+        byte[] last = new byte[length];
+        int first = BurrowsWheeler.encodeBlock(block, length, last);
+
+        // the MTF output reuses the last column array
+        MoveToFront.encode(last, last);
+
+        int[] symbols = new int[length];
+        int symbolCount;
+        int alphabetSize;
+        if (zeroRunLength) {
+            symbolCount = ZeroRunLength.encode(last, length, symbols);
+            alphabetSize = ZeroRunLength.ALPHABET_SIZE;
+        }
+        else {
+            for (int i = 0; i < length; i++) {
+                symbols[i] = last[i] & MAX_BYTE_VALUE;
+            }
+            symbolCount = length;
+            alphabetSize = ALPHABET_SIZE;
+        }
+
+        int[] freq = new int[alphabetSize];
+        for (int i = 0; i < symbolCount; i++) {
+            freq[symbols[i]]++;
+        }
+
+        CanonicalHuffman huffman = new CanonicalHuffman(CanonicalHuffman.getCodeLengths(freq));
+        byte[] payload = huffman.encode(symbols, symbolCount);
+
+        return new Block(length, first, (int) crc.getValue(),
+                         zeroRunLength ? FLAG_ZERO_RUN_LENGTH : 0, symbolCount,
+                         huffman.getLengths(), payload);
+    }
+
+    /**
+     * Decompresses one block and verifies its checksum
+     *
+     * @param compressed the compressed {@link Block}
+     * @param plain      the array to write the decompressed bytes into
+     */
+    static void decompressBlock(Block compressed, byte[] plain) {
+        int length = compressed.length;
+
+        int[] symbols = new int[compressed.symbolCount];
+        new CanonicalHuffman(compressed.codeLengths)
+                .decode(compressed.payload, symbols, compressed.symbolCount);
+
+        byte[] last = new byte[length];
+        if ((compressed.flags & FLAG_ZERO_RUN_LENGTH) != 0) {
+            int decodedLength = ZeroRunLength.decode(symbols, compressed.symbolCount, last);
+            if (decodedLength != length) {
+                throw new IllegalArgumentException(
+                        String.format("Decoded length: %d, expected: %d", decodedLength, length));
+            }
+        }
+        else {
+            for (int i = 0; i < length; i++) {
+                last[i] = (byte) symbols[i];
+            }
+        }
+        MoveToFront.decode(last, last);
+
+        BurrowsWheeler.decode(last, length, compressed.first, plain, 0);
+
+        CRC32 crc = new CRC32();
+        crc.update(plain, 0, length);
+        if ((int) crc.getValue() != compressed.crc) {
+            throw new IllegalArgumentException("CRC mismatch, the block is corrupted!");
+        }
+    }
+
+    /**
+     * Writes the block to standard output: original length (int), first (int), CRC-32 of the
+     * original bytes (int), flags (byte), number of coded symbols (int), size of the alphabet of
+     * the code (short), code length of each symbol (byte each), length of the payload (int),
+     * Huffman coded payload
+     *
+     * @param compressed the compressed {@link Block}
+     */
+    private static void writeBlock(Block compressed) {
+        BinaryStdOut.write(compressed.length);
+        BinaryStdOut.write(compressed.first);
+        BinaryStdOut.write(compressed.crc);
+        BinaryStdOut.write((byte) compressed.flags);
+        BinaryStdOut.write(compressed.symbolCount);
+        BinaryStdOut.write((char) compressed.codeLengths.length, 16);
+        for (int length : compressed.codeLengths) {
+            BinaryStdOut.write((byte) length);
+        }
+        BinaryStdOut.write(compressed.payload.length);
+        for (byte b : compressed.payload) {
+            BinaryStdOut.write(b);
+        }
+    }
+
+    /**
+     * Reads a block written by {@link #writeBlock(Block)} from standard input
+     *
+     * @param blockSize the block size of the stream
+     * @return the compressed {@link Block}
+     */
+    private static Block readBlock(int blockSize) {
+        int length = BinaryStdIn.readInt();
+        int first = BinaryStdIn.readInt();
+        int crc = BinaryStdIn.readInt();
+        if (length <= 0 || length > blockSize || first < 0 || first >= length) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid block header, length: %d, first: %d", length, first));
+        }
+
+        int flags = Byte.toUnsignedInt(BinaryStdIn.readByte());
+        int symbolCount = BinaryStdIn.readInt();
+        if (symbolCount < 0 || symbolCount > length) {
+            throw new IllegalArgumentException("Invalid symbol count: " + symbolCount);
+        }
+        if ((flags & FLAG_ZERO_RUN_LENGTH) == 0 && symbolCount != length) {
+            // without the zero run-length stage each byte is one symbol
+            throw new IllegalArgumentException(
+                    String.format("Invalid symbol count: %d for block length: %d", symbolCount,
+                                  length));
+        }
+
+        int alphabetSize = BinaryStdIn.readChar(16);
+        int expectedAlphabetSize = (flags & FLAG_ZERO_RUN_LENGTH) != 0
+                                   ? ZeroRunLength.ALPHABET_SIZE
+                                   : ALPHABET_SIZE;
+        if (alphabetSize != expectedAlphabetSize) {
+            throw new IllegalArgumentException("Invalid alphabet size: " + alphabetSize);
+        }
+        int[] codeLengths = new int[alphabetSize];
+        for (int i = 0; i < alphabetSize; i++) {
+            codeLengths[i] = Byte.toUnsignedInt(BinaryStdIn.readByte());
+        }
+
+        int payloadLength = BinaryStdIn.readInt();
+        if (payloadLength < 0) {
+            throw new IllegalArgumentException("Invalid payload length: " + payloadLength);
+        }
+        byte[] payload = new byte[payloadLength];
+        for (int i = 0; i < payloadLength; i++) {
+            payload[i] = BinaryStdIn.readByte();
+        }
+        return new Block(length, first, crc, flags, symbolCount, codeLengths, payload);
+    }
+
+    /**
+     * Reads the next block from standard input
+     *
+     * @param block the buffer of the block
+     * @return the number of bytes read, 0 at the end of the input
+     */
+    private static int readBlock(byte[] block) {
+        int length = 0;
+        while (length < block.length && !BinaryStdIn.isEmpty()) {
+            block[length++] = BinaryStdIn.readByte();
+        }
+        return length;
+    }
+
+    /**
+     * A compressed block
+     */
+    static class Block {
+        private final int length;
+        private final int first;
+        private final int crc;
+        private final int flags;
+        private final int symbolCount;
+        private final int[] codeLengths;
+        private final byte[] payload;
+
+        public Block(int length, int first, int crc, int flags, int symbolCount,
+                     int[] codeLengths, byte[] payload) {
+            this.length = length;
+            this.first = first;
+            this.crc = crc;
+            this.flags = flags;
+            this.symbolCount = symbolCount;
+            this.codeLengths = codeLengths;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Canonical Huffman code over an integer alphabet. Only the code lengths of the symbols need to be
+ * stored: the codes are assigned in order of (code length, symbol), like in DEFLATE.
+ * <p>
+ * The code lengths are limited to {@value #MAX_CODE_LENGTH} bits by halving the frequencies until
+ * the tree is shallow enough.
+ */
+public class CanonicalHuffman {
+
+    /**
+     * Maximum length of a code in bits
+     */
+    public static final int MAX_CODE_LENGTH = 20;
+
+    private final int[] lengths;
+    private final int[] codes;
+
+    /**
+     * Number of codes of each length
+     */
+    private final int[] counts = new int[MAX_CODE_LENGTH + 1];
+
+    /**
+     * Symbols ordered by (code length, symbol)
+     */
+    private final int[] sortedSymbols;
+
+    /**
+     * Creates the code from the code lengths of the symbols
+     *
+     * @param lengths the code length of each symbol, 0 if the symbol is not used
+     */
+    public CanonicalHuffman(int[] lengths) {
+        if (lengths == null) {
+            throw new IllegalArgumentException();
+        }
+        this.lengths = lengths.clone();
+        this.codes = new int[lengths.length];
+
+        int used = 0;
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            int length = lengths[symbol];
+            if (length < 0 || length > MAX_CODE_LENGTH) {
+                throw new IllegalArgumentException(
+                        String.format("Code length: %d of symbol: %d is out of range [0,%d]",
+                                      length, symbol, MAX_CODE_LENGTH));
+            }
+            if (length > 0) {
+                counts[length]++;
+                used++;
+            }
+        }
+
+        // first code of each length
+        int[] nextCode = new int[MAX_CODE_LENGTH + 2];
+        int code = 0;
+        for (int length = 1; length <= MAX_CODE_LENGTH; length++) {
+            code = (code + counts[length - 1]) << 1;
+            nextCode[length] = code;
+        }
+        // first symbol index of each length in sortedSymbols
+        int[] offsets = new int[MAX_CODE_LENGTH + 2];
+        for (int length = 1; length <= MAX_CODE_LENGTH; length++) {
+            offsets[length + 1] = offsets[length] + counts[length];
+        }
+
+        sortedSymbols = new int[used];
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            int length = lengths[symbol];
+            if (length > 0) {
+                codes[symbol] = nextCode[length]++;
+                sortedSymbols[offsets[length]++] = symbol;
+            }
+        }
+    }
+
+    /**
+     * Returns the length limited Huffman code lengths for the frequencies
+     *
+     * @param freq the frequency of each symbol
+     * @return the code length of each symbol, 0 for the symbols with 0 frequency
+     */
+    public static int[] getCodeLengths(int[] freq) {
+        long[] weights = new long[freq.length];
+        for (int i = 0; i < freq.length; i++) {
+            weights[i] = freq[i];
+        }
+
+        while (true) {
+            int[] lengths = getCodeLengths(weights);
+            int maxLength = 0;
+            for (int length : lengths) {
+                maxLength = Math.max(maxLength, length);
+            }
+            if (maxLength <= MAX_CODE_LENGTH) {
+                return lengths;
+            }
+            // flatten the distribution, keeping the used symbols
+            for (int i = 0; i < weights.length; i++) {
+                if (weights[i] > 0) {
+                    weights[i] = (weights[i] + 1) / 2;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the (unlimited) Huffman code lengths, a single used symbol gets a 1 bit code
+     */
+    private static int[] getCodeLengths(long[] weights) {
+        int n = weights.length;
+        int[] lengths = new int[n];
+
+        // nodes 0..n-1 are the leaves, the internal nodes are added after them
+        long[] nodeWeights = Arrays.copyOf(weights, 2 * n);
+        int[] parent = new int[2 * n];
+        PriorityQueue<Integer> pq = new PriorityQueue<>(
+                (a, b) -> nodeWeights[a] != nodeWeights[b]
+                          ? Long.compare(nodeWeights[a], nodeWeights[b])
+                          : Integer.compare(a, b));
+        for (int i = 0; i < n; i++) {
+            if (weights[i] > 0) {
+                pq.add(i);
+            }
+        }
+        if (pq.size() == 1) {
+            lengths[pq.poll()] = 1;
+            return lengths;
+        }
+
+        int next = n;
+        while (pq.size() > 1) {
+            int x = pq.poll();
+            int y = pq.poll();
+            nodeWeights[next] = nodeWeights[x] + nodeWeights[y];
+            parent[x] = next;
+            parent[y] = next;
+            pq.add(next++);
+        }
+
+        int root = next - 1;
+        for (int i = 0; i < n; i++) {
+            if (weights[i] > 0) {
+                int length = 0;
+                for (int node = i; node != root; node = parent[node]) {
+                    length++;
+                }
+                lengths[i] = length;
+            }
+        }
+        return lengths;
+    }
+
+    /**
+     * Returns the code length of each symbol
+     *
+     * @return the code lengths
+     */
+    public int[] getLengths() {
+        return lengths.clone();
+    }
+
+    /**
+     * Encodes <code>symbols[0..count-1]</code>
+     *
+     * @param symbols the symbols to encode
+     * @param count   the number of symbols
+     * @return the encoded bits, packed most significant bit first
+     */
+    public byte[] encode(int[] symbols, int count) {
+        long bits = 0;
+        for (int i = 0; i < count; i++) {
+            int length = lengths[symbols[i]];
+            if (length == 0) {
+                throw new IllegalArgumentException(
+                        String.format("Symbol: %d has no code", symbols[i]));
+            }
+            bits += length;
+        }
+        if ((bits + 7) / 8 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many symbols: " + count);
+        }
+
+        byte[] out = new byte[(int) ((bits + 7) / 8)];
+        int position = 0;
+        long buffer = 0;
+        int bufferLength = 0;
+        for (int i = 0; i < count; i++) {
+            int symbol = symbols[i];
+            buffer = (buffer << lengths[symbol]) | codes[symbol];
+            bufferLength += lengths[symbol];
+            while (bufferLength >= Byte.SIZE) {
+                bufferLength -= Byte.SIZE;
+                out[position++] = (byte) (buffer >>> bufferLength);
+            }
+        }
+        if (bufferLength > 0) {
+            out[position] = (byte) (buffer << (Byte.SIZE - bufferLength));
+        }
+        return out;
+    }
+
+    /**
+     * Decodes <code>count</code> symbols (the canonical code is decoded bit by bit, see puff.c of
+     * zlib)
+     *
+     * @param in      the encoded bits, as written by {@link #encode(int[], int)}
+     * @param symbols the array to store the decoded symbols into
+     * @param count   the number of symbols to decode
+     */
+    public void decode(byte[] in, int[] symbols, int count) {
+        long bitPosition = 0;
+        long bitLength = (long) in.length * Byte.SIZE;
+
+        for (int i = 0; i < count; i++) {
+            int code = 0;   // bits read so far
+            int first = 0;  // first code of the current length
+            int index = 0;  // index of the first code of the current length in sortedSymbols
+            int length = 1;
+            while (true) {
+                if (length > MAX_CODE_LENGTH || bitPosition >= bitLength) {
+                    throw new IllegalArgumentException("Invalid Huffman code at symbol: " + i);
+                }
+                int bit = (in[(int) (bitPosition >>> 3)] >>> (7 - (bitPosition & 7))) & 1;
+                bitPosition++;
+                code |= bit;
+                int lengthCount = counts[length];
+                if (code - first < lengthCount) {
+                    symbols[i] = sortedSymbols[index + code - first];
+                    break;
+                }
+                index += lengthCount;
+                first = (first + lengthCount) << 1;
+                code <<= 1;
+                length++;
+            }
+        }
+    }
+}
@@ -1,23 +1,40 @@
+/**
+ * Sorted array of the n circular suffixes of a string of length n. The construction algorithm is
+ * pluggable by a {@link SuffixSorter}, by default the linear time {@link SaisSuffixSorter} is used.
+ */
 public class CircularSuffixArray {
 
-    private final char[] s;
-    private final int length;
+    private static final SuffixSorter DEFAULT_SORTER = new SaisSuffixSorter();
+    private static final int MAX_BYTE_VALUE = 255;
+
     private final int[] index;
 
     // circular suffix array of s
     public CircularSuffixArray(String s) {
-        if (s == null) {
-            throw new IllegalArgumentException();
-        }
-        this.s = s.toCharArray();
-        this.length = s.length();
-        this.index = new int[length];
+        this(toBytes(s), DEFAULT_SORTER);
+    }
 
-        // init index
-        for (int i = 0; i < length; i++) {
-            index[i] = i;
+    /**
+     * Circular suffix array of the 8-bit string s
+     *
+     * @param s the string, each byte is treated as an unsigned value between 0 and 255
+     */
+    public CircularSuffixArray(byte[] s) {
+        this(s, DEFAULT_SORTER);
+    }
+
+    /**
+     * Circular suffix array of the 8-bit string s, built by the given {@link SuffixSorter}
+     *
+     * @param s      the string, each byte is treated as an unsigned value between 0 and 255
+     * @param sorter the construction algorithm, e.g.: {@link SaisSuffixSorter} or {@link
+     *               QuickSortSuffixSorter}
+     */
+    public CircularSuffixArray(byte[] s, SuffixSorter sorter) {
+        if (s == null || sorter == null) {
+            throw new IllegalArgumentException();
         }
-        sort(0, length - 1, 0);
+        this.index = sorter.sort(s);
     }
 
     // unit testing (required)
@@ -61,49 +78,20 @@ public class CircularSuffixArray {
         return index[i];
     }
 
-    // exchange index[i] and index[j]
-    private void exch(int i, int j) {
-        int temp = index[i];
-        index[i] = index[j];
-        index[j] = temp;
-    }
-
-    // return the dth character of ithString, -1 if dthChar = length of ithString
-    private int charAt(int ithString, int dthChar) {
-        if (dthChar == length) return -1;
-        return this.s[((ithString + dthChar) % length)];
-    }
-
-    // 3-way string quicksort index[lo..hi] starting at dth character
-    private void sort(int lo, int hi, int d) {
-
-        if (hi <= lo || d >= length) {
-            return;
-        }
-
-        int lt = lo;
-        int gt = hi;
-        int v = charAt(index[lo], d);
-        int i = lo + 1;
-
-        while (i <= gt) {
-            int t = charAt(index[i], d);
-            if (t < v) {
-                exch(lt++, i++);
-            }
-            else if (t > v) {
-                exch(i, gt--);
-            }
-            else {
-                i++;
-            }
+    /**
+     * Converts the 8-bit characters of the string to bytes
+     *
+     * @param s the string
+     * @return the byte array
+     */
+    private static byte[] toBytes(String s) {
+        if (s == null) {
+            throw new IllegalArgumentException();
         }
-
-        // index[lo..lt-1] < v = index[lt..gt] < index[gt+1..hi].
-        sort(lo, lt - 1, d);
-        if (v >= 0) {
-            sort(lt, gt, d + 1);
+        byte[] bytes = new byte[s.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (s.charAt(i) & MAX_BYTE_VALUE);
         }
-        sort(gt + 1, hi, d);
+        return bytes;
     }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A file mapped into memory in windows of at most {@value #MAX_WINDOW_SIZE} bytes, the largest
+ * mapping of a {@link FileChannel}.
+ * <p>
+ * The blocks of the file mode are {@link #slice(long, int) slices} of the current window, a new
+ * window is mapped only when a block does not fit into it, so a file smaller than 2 GB is mapped
+ * once instead of once per block.
+ */
+class MappedFile {
+
+    static final int MAX_WINDOW_SIZE = Integer.MAX_VALUE;
+
+    private final FileChannel channel;
+    private final FileChannel.MapMode mode;
+    private final long size;
+
+    private MappedByteBuffer window;
+    private long windowPosition;
+
+    /**
+     * Creates the mapped file, the first window is mapped by the first {@link #slice(long, int)}
+     *
+     * @param channel the channel of the file
+     * @param mode    the map mode, a {@link FileChannel.MapMode#READ_WRITE} mapping extends the
+     *                file to <code>size</code>
+     * @param size    the size of the file
+     */
+    MappedFile(FileChannel channel, FileChannel.MapMode mode, long size) {
+        this.channel = channel;
+        this.mode = mode;
+        this.size = size;
+    }
+
+    /**
+     * Returns the slice <code>[position, position + length)</code> of the file, mapping the next
+     * window if the slice is outside of the current one
+     * <p>
+     * Throw a java.lang.IllegalArgumentException if the slice is not inside the file.
+     *
+     * @param position the position of the slice in the file
+     * @param length   the length of the slice
+     * @return the slice, positioned at 0 in big-endian byte order
+     * @throws IOException if the window cannot be mapped
+     */
+    ByteBuffer slice(long position, int length) throws IOException {
+        if (position < 0 || length < 0 || length > size - position) {
+            throw new IllegalArgumentException(
+                    String.format("Slice: [%d,%d) is outside of the file of size: %d", position,
+                                  position + length, size));
+        }
+        if (window == null || position < windowPosition
+                || position + length > windowPosition + window.capacity()) {
+            windowPosition = position;
+            window = channel.map(mode, position, Math.min(MAX_WINDOW_SIZE, size - position));
+        }
+        return window.slice((int) (position - windowPosition), length);
+    }
+}
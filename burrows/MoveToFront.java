@@ -1,13 +1,35 @@
 import edu.princeton.cs.algs4.BinaryStdIn;
 import edu.princeton.cs.algs4.BinaryStdOut;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
 public class MoveToFront {
 
     private static final short ALPHABET_SIZE = 256;
     private static final short MAX_BYTE_VALUE = 255;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int FILE_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * View of the alphabet array as longs, for searching 8 characters at once
+     */
+    private static final VarHandle LONG_VIEW = MethodHandles
+            .byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
 
     // if args[0] is '-', apply move-to-front encoding
     // if args[0] is '+', apply move-to-front decoding
+    // if args[0] is '-f' or '+f', apply move-to-front encoding or decoding on memory-mapped files,
+    // args[1] is the input file, args[2] is the output file
     public static void main(String[] args) {
 
         if (args.length == 0) {
@@ -21,8 +43,15 @@ public class MoveToFront {
             case "+":
                 decode();
                 break;
+            case "-f":
+            case "+f":
+                if (args.length < 3) {
+                    throw new IllegalArgumentException("No input and output file specified!");
+                }
+                transform(Paths.get(args[1]), Paths.get(args[2]), "-f".equals(flag));
+                break;
             default:
-                System.out.println("Only + or - is allowed!");
+                System.out.println("Only +, -, +f or -f is allowed!");
                 break;
         }
     }
@@ -31,11 +60,13 @@ public class MoveToFront {
     public static void encode() {
 
         byte[] alphabet = getAlphabet();
+        byte[] in = new byte[BUFFER_SIZE];
+        byte[] out = new byte[BUFFER_SIZE];
 
-        while (!BinaryStdIn.isEmpty()) {
-            int value = BinaryStdIn.readChar();
-            int out = moveToFront(alphabet, (byte) (value & MAX_BYTE_VALUE));
-            BinaryStdOut.write((byte) (out & MAX_BYTE_VALUE));
+        int length;
+        while ((length = read(in)) > 0) {
+            encode(in, length, out, alphabet);
+            write(out, length);
         }
         BinaryStdOut.close();
     }
@@ -56,56 +87,196 @@ public class MoveToFront {
     public static void decode() {
 
         byte[] alphabet = getAlphabet();
+        byte[] in = new byte[BUFFER_SIZE];
+        byte[] out = new byte[BUFFER_SIZE];
 
-        while (!BinaryStdIn.isEmpty()) {
-            int index = Byte.toUnsignedInt(BinaryStdIn.readByte());
-            int value = alphabet[index];
-            BinaryStdOut.write((byte) (value & MAX_BYTE_VALUE));
-            moveToFront(alphabet, (byte) (value & MAX_BYTE_VALUE));
+        int length;
+        while ((length = read(in)) > 0) {
+            decode(in, length, out, alphabet);
+            write(out, length);
         }
         BinaryStdOut.close();
     }
 
-    private static byte[] getAlphabet() {
-        byte[] alphabet = new byte[ALPHABET_SIZE];
-        for (int i = 0; i < ALPHABET_SIZE; i++) {
-            alphabet[i] = (byte) (i & MAX_BYTE_VALUE);
-        }
-        return alphabet;
+    /**
+     * Move-to-front encoding of the whole <code>in</code> array, starting from the initial
+     * (identity) sequence of the 256 characters
+     *
+     * @param in  the bytes to encode
+     * @param out the array to write the encoded bytes into, at least as long as <code>in</code>
+     */
+    public static void encode(byte[] in, byte[] out) {
+        checkBuffers(in, out);
+        encode(in, in.length, out, getAlphabet());
     }
 
     /**
-     * Moves the <code>character</code> to the front of array <code>alphabet</code>
+     * Move-to-front decoding of the whole <code>in</code> array, starting from the initial
+     * (identity) sequence of the 256 characters
      *
-     * @param alphabet  the alphabet array
-     * @param character the character to move to the front
-     * @return the index of character before moving to front
+     * @param in  the bytes to decode
+     * @param out the array to write the decoded bytes into, at least as long as <code>in</code>
+     */
+    public static void decode(byte[] in, byte[] out) {
+        checkBuffers(in, out);
+        decode(in, in.length, out, getAlphabet());
+    }
+
+    /**
+     * Move-to-front encoding from the input file to the output file
+     *
+     * @param input  the input file
+     * @param output the output file, created or truncated
      */
-    private static int moveToFront(byte[] alphabet, byte character) {
-        // get old index
-        int index = getIndex(alphabet, character);
+    public static void encode(Path input, Path output) {
+        transform(input, output, true);
+    }
+
+    /**
+     * Move-to-front decoding from the input file to the output file
+     *
+     * @param input  the input file
+     * @param output the output file, created or truncated
+     */
+    public static void decode(Path input, Path output) {
+        transform(input, output, false);
+    }
+
+    /**
+     * Move-to-front encoding or decoding of the input file in chunks of {@value #FILE_CHUNK_SIZE}
+     * bytes. The files are mapped into memory in windows of up to 2 GB (see {@link MappedFile}),
+     * each chunk is a slice of a window copied into the buffer of the word-wise alphabet search and
+     * back. The sequence of characters is carried over from chunk to chunk.
+     *
+     * @param input  the input file
+     * @param output the output file, created or truncated
+     * @param encode true to encode, false to decode
+     */
+    private static void transform(Path input, Path output, boolean encode) {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.READ,
+                                                StandardOpenOption.WRITE,
+                                                StandardOpenOption.CREATE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            byte[] alphabet = getAlphabet();
+            byte[] buffer = new byte[FILE_CHUNK_SIZE];
+
+            long size = in.size();
+            MappedFile source = new MappedFile(in, FileChannel.MapMode.READ_ONLY, size);
+            MappedFile target = new MappedFile(out, FileChannel.MapMode.READ_WRITE, size);
+            for (long position = 0; position < size; position += FILE_CHUNK_SIZE) {
+                int length = (int) Math.min(FILE_CHUNK_SIZE, size - position);
+                source.slice(position, length).get(buffer, 0, length);
+                if (encode) {
+                    encode(buffer, length, buffer, alphabet);
+                }
+                else {
+                    decode(buffer, length, buffer, alphabet);
+                }
+                target.slice(position, length).put(buffer, 0, length);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        byte temp = alphabet[index];
+    private static void checkBuffers(byte[] in, byte[] out) {
+        if (in == null || out == null || out.length < in.length) {
+            throw new IllegalArgumentException();
+        }
+    }
 
-        System.arraycopy(alphabet, 0, alphabet, 1, index);
-        alphabet[0] = temp;
+    /**
+     * Move-to-front encoding of <code>in[0..length-1]</code>
+     *
+     * @param in       the bytes to encode
+     * @param length   the number of bytes to encode
+     * @param out      the array to write the encoded bytes into
+     * @param alphabet the current sequence of characters, updated as the characters are moved
+     */
+    private static void encode(byte[] in, int length, byte[] out, byte[] alphabet) {
+        for (int i = 0; i < length; i++) {
+            byte character = in[i];
+            int index = getIndex(alphabet, character);
+            out[i] = (byte) index;
 
-        return index;
+            System.arraycopy(alphabet, 0, alphabet, 1, index);
+            alphabet[0] = character;
+        }
     }
 
     /**
-     * Linear search for the character in the alphabet array
+     * SWAR (SIMD within a register) search for the character in the alphabet array: 8 positions
+     * are compared at once by testing the words of the alphabet XOR-ed with the character
+     * broadcast to all bytes for a zero byte. Borrows of the zero byte test only propagate towards
+     * the higher bytes, so the lowest flagged byte is always the first match.
      *
      * @param alphabet  the alphabet array
      * @param character the character to search for
      * @return the index of character in array
      */
-    private static int getIndex(byte[] alphabet, int character) {
-        for (int i = 0; i < ALPHABET_SIZE; i++) {
-            if ((alphabet[i] & MAX_BYTE_VALUE) == (character & MAX_BYTE_VALUE)) {
-                return i;
+    private static int getIndex(byte[] alphabet, byte character) {
+        // the most frequent case on Burrows-Wheeler transformed data
+        if (alphabet[0] == character) {
+            return 0;
+        }
+        long pattern = (character & MAX_BYTE_VALUE) * LOW_BITS;
+        for (int offset = 0; offset < ALPHABET_SIZE; offset += Long.BYTES) {
+            long word = (long) LONG_VIEW.get(alphabet, offset) ^ pattern;
+            long zeroBytes = (word - LOW_BITS) & ~word & HIGH_BITS;
+            if (zeroBytes != 0) {
+                return offset + (Long.numberOfTrailingZeros(zeroBytes) >>> 3);
             }
         }
         throw new IllegalArgumentException();
     }
+
+    /**
+     * Move-to-front decoding of <code>in[0..length-1]</code>
+     *
+     * @param in       the bytes to decode
+     * @param length   the number of bytes to decode
+     * @param out      the array to write the decoded bytes into
+     * @param alphabet the current sequence of characters, updated as the characters are moved
+     */
+    private static void decode(byte[] in, int length, byte[] out, byte[] alphabet) {
+        for (int i = 0; i < length; i++) {
+            int index = in[i] & MAX_BYTE_VALUE;
+            byte value = alphabet[index];
+            out[i] = value;
+
+            System.arraycopy(alphabet, 0, alphabet, 1, index);
+            alphabet[0] = value;
+        }
+    }
+
+    private static byte[] getAlphabet() {
+        byte[] alphabet = new byte[ALPHABET_SIZE];
+        for (int i = 0; i < ALPHABET_SIZE; i++) {
+            alphabet[i] = (byte) (i & MAX_BYTE_VALUE);
+        }
+        return alphabet;
+    }
+
+    /**
+     * Reads the next chunk from standard input
+     *
+     * @param buffer the buffer to read into
+     * @return the number of bytes read, 0 at the end of the input
+     */
+    private static int read(byte[] buffer) {
+        int length = 0;
+        while (length < buffer.length && !BinaryStdIn.isEmpty()) {
+            buffer[length++] = BinaryStdIn.readByte();
+        }
+        return length;
+    }
+
+    private static void write(byte[] buffer, int length) {
+        for (int i = 0; i < length; i++) {
+            BinaryStdOut.write(buffer[i]);
+        }
+    }
 }
@@ -0,0 +1,232 @@
+import edu.princeton.cs.algs4.BinaryStdIn;
+import edu.princeton.cs.algs4.BinaryStdOut;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Block mode Burrows-Wheeler transform running the blocks concurrently on an {@link
+ * ExecutorService} (by default the common {@link ForkJoinPool}).
+ * <p>
+ * The blocks are read sequentially from standard input and submitted to the executor. The futures
+ * are kept in submission order in a bounded reorder buffer, the oldest block is written as soon as
+ * it is ready, so the output is identical to {@link BurrowsWheeler#transform(int)} and at most
+ * <code>blocksInFlight</code> blocks are held in memory.
+ */
+public class ParallelBurrowsWheeler {
+
+    private final ExecutorService executor;
+    private final int blocksInFlight;
+
+    /**
+     * Creates a parallel transformer using the common {@link ForkJoinPool}
+     */
+    public ParallelBurrowsWheeler() {
+        this(ForkJoinPool.commonPool(), 2 * ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * Creates a parallel transformer using the given executor
+     *
+     * @param executor       the executor running the block transforms
+     * @param blocksInFlight the maximum number of blocks submitted but not yet written, should be
+     *                       at least the number of threads of the executor to keep all of them
+     *                       busy
+     */
+    public ParallelBurrowsWheeler(ExecutorService executor, int blocksInFlight) {
+        if (executor == null || blocksInFlight < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.executor = executor;
+        this.blocksInFlight = blocksInFlight;
+    }
+
+    /**
+     * <p>if args[0] is '-', apply Burrows-Wheeler transform in block mode, args[1] is the optional
+     * block size, args[2] is the optional number of threads
+     * <p>if args[0] is '+', apply Burrows-Wheeler inverse transform in block mode, args[1] is the
+     * optional number of threads
+     *
+     * @param args program arguments
+     */
+    public static void main(String[] args) {
+
+        if (args.length == 0) {
+            throw new IllegalArgumentException("No flag (- or +) specified!");
+        }
+        String flag = args[0];
+        int threadsArg = "-".equals(flag) ? 2 : 1;
+        int threads = args.length > threadsArg
+                      ? Integer.parseInt(args[threadsArg])
+                      : Runtime.getRuntime().availableProcessors();
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            ParallelBurrowsWheeler pbw = new ParallelBurrowsWheeler(pool, 2 * threads);
+            switch (flag) {
+                case "-":
+                    pbw.transform(args.length > 1
+                                  ? Integer.parseInt(args[1])
+                                  : BurrowsWheeler.DEFAULT_BLOCK_SIZE);
+                    break;
+                case "+":
+                    pbw.inverseTransform();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Only + or - is allowed!");
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Burrows–Wheeler transform in block mode, see {@link BurrowsWheeler#transform(int)} for the
+     * format of the output
+     *
+     * @param blockSize the size of the blocks
+     */
+    public void transform(int blockSize) {
+        transform(blockSize, 1);
+    }
+
+    /**
+     * Burrows–Wheeler transform in block mode with interleaved decoding chains, see {@link
+     * BurrowsWheeler#transform(int, int)} for the format of the output
+     *
+     * @param blockSize the size of the blocks
+     * @param chains    the number of decoding chains per block
+     */
+    public void transform(int blockSize, int chains) {
+        if (blockSize < BurrowsWheeler.MIN_BLOCK_SIZE
+                || blockSize > BurrowsWheeler.MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException(
+                    String.format("Block size: %d is out of range [%d,%d]", blockSize,
+                                  BurrowsWheeler.MIN_BLOCK_SIZE, BurrowsWheeler.MAX_BLOCK_SIZE));
+        }
+        if (chains < 1 || chains > BurrowsWheeler.MAX_CHAINS) {
+            throw new IllegalArgumentException(
+                    String.format("Chains: %d is out of range [%d,%d]", chains, 1,
+                                  BurrowsWheeler.MAX_CHAINS));
+        }
+
+        Deque<Future<EncodedBlock>> reorderBuffer = new ArrayDeque<>();
+
+        while (!BinaryStdIn.isEmpty()) {
+            byte[] block = new byte[blockSize];
+            int length = 0;
+            while (length < blockSize && !BinaryStdIn.isEmpty()) {
+                block[length++] = BinaryStdIn.readByte();
+            }
+            int blockLength = length;
+
+            if (reorderBuffer.size() == blocksInFlight) {
+                writeEncodedBlock(await(reorderBuffer.removeFirst()));
+            }
+            reorderBuffer.addLast(executor.submit(() -> {
+                byte[] last = new byte[blockLength];
+                int[] starts = new int[BurrowsWheeler.getChainCount(blockLength, chains)];
+                BurrowsWheeler.encodeBlock(block, blockLength, last, starts);
+                return new EncodedBlock(starts, last);
+            }));
+        }
+
+        while (!reorderBuffer.isEmpty()) {
+            writeEncodedBlock(await(reorderBuffer.removeFirst()));
+        }
+
+        BinaryStdOut.close();
+    }
+
+    /**
+     * Burrows-Wheeler inverse transform in block mode, decoding the blocks concurrently
+     */
+    public void inverseTransform() {
+
+        Deque<Future<byte[]>> reorderBuffer = new ArrayDeque<>();
+
+        while (!BinaryStdIn.isEmpty()) {
+            BurrowsWheeler.BlockHeader header = BurrowsWheeler.readBlockHeader();
+            int length = header.length;
+
+            byte[] t = new byte[length];
+            for (int i = 0; i < length; i++) {
+                if (BinaryStdIn.isEmpty()) {
+                    throw new IllegalArgumentException(
+                            String.format("Truncated block, length: %d, remaining: %d", length,
+                                          i));
+                }
+                t[i] = BinaryStdIn.readByte();
+            }
+
+            if (reorderBuffer.size() == blocksInFlight) {
+                writeDecodedBlock(await(reorderBuffer.removeFirst()));
+            }
+            reorderBuffer.addLast(executor.submit(() -> {
+                byte[] plain = new byte[length];
+                BurrowsWheeler.decode(t, length, header.starts, plain, 0);
+                return plain;
+            }));
+        }
+
+        while (!reorderBuffer.isEmpty()) {
+            writeDecodedBlock(await(reorderBuffer.removeFirst()));
+        }
+
+        BinaryStdOut.close();
+    }
+
+    private static void writeEncodedBlock(EncodedBlock encodedBlock) {
+        BurrowsWheeler.writeBlockHeader(encodedBlock.last.length, encodedBlock.starts);
+        for (int i = 0; i < encodedBlock.last.length; i++) {
+            BinaryStdOut.write(encodedBlock.last[i]);
+        }
+    }
+
+    private static void writeDecodedBlock(byte[] plain) {
+        for (int i = 0; i < plain.length; i++) {
+            BinaryStdOut.write(plain[i]);
+        }
+    }
+
+    /**
+     * Waits for the block to be finished
+     *
+     * @param future the {@link Future} of the block
+     * @param <T>    the type of the result
+     * @return the result of the block
+     */
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a block", e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Result of the transform of one block
+     */
+    private static class EncodedBlock {
+        private final int[] starts;
+        private final byte[] last;
+
+        public EncodedBlock(int[] starts, byte[] last) {
+            this.starts = starts;
+            this.last = last;
+        }
+    }
+}
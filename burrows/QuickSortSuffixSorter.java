@@ -0,0 +1,68 @@
+/**
+ * Sorts the circular suffixes with 3-way string quicksort. Simple, but the running time is
+ * quadratic for repetitive inputs (and the recursion depth is proportional to the longest repeat),
+ * so it is only kept as a fallback for {@link SaisSuffixSorter}.
+ */
+public class QuickSortSuffixSorter implements SuffixSorter {
+
+    private static final int MAX_BYTE_VALUE = 255;
+
+    @Override
+    public int[] sort(byte[] s) {
+        int length = s.length;
+        int[] index = new int[length];
+
+        // init index
+        for (int i = 0; i < length; i++) {
+            index[i] = i;
+        }
+        sort(s, index, 0, length - 1, 0);
+        return index;
+    }
+
+    // exchange index[i] and index[j]
+    private static void exch(int[] index, int i, int j) {
+        int temp = index[i];
+        index[i] = index[j];
+        index[j] = temp;
+    }
+
+    // return the dth character of ithString, -1 if dthChar = length of ithString
+    private static int charAt(byte[] s, int ithString, int dthChar) {
+        if (dthChar == s.length) return -1;
+        return s[((ithString + dthChar) % s.length)] & MAX_BYTE_VALUE;
+    }
+
+    // 3-way string quicksort index[lo..hi] starting at dth character
+    private static void sort(byte[] s, int[] index, int lo, int hi, int d) {
+
+        if (hi <= lo || d >= s.length) {
+            return;
+        }
+
+        int lt = lo;
+        int gt = hi;
+        int v = charAt(s, index[lo], d);
+        int i = lo + 1;
+
+        while (i <= gt) {
+            int t = charAt(s, index[i], d);
+            if (t < v) {
+                exch(index, lt++, i++);
+            }
+            else if (t > v) {
+                exch(index, i, gt--);
+            }
+            else {
+                i++;
+            }
+        }
+
+        // index[lo..lt-1] < v = index[lt..gt] < index[gt+1..hi].
+        sort(s, index, lo, lt - 1, d);
+        if (v >= 0) {
+            sort(s, index, lt, gt, d + 1);
+        }
+        sort(s, index, gt + 1, hi, d);
+    }
+}
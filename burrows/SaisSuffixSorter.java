@@ -0,0 +1,211 @@
+import java.util.Arrays;
+
+/**
+ * Sorts the circular suffixes in linear time with the SA-IS (suffix array by induced sorting)
+ * algorithm of Nong, Zhang and Chan.
+ * <p>
+ * SA-IS sorts ordinary (non circular) suffixes terminated by a unique smallest sentinel, so the
+ * input is doubled: the first n characters of the suffix of <code>s + s</code> starting at
+ * offset i &lt; n are exactly the circular suffix i. The suffixes starting in the first half are
+ * taken in the order of the suffix array of <code>s + s + sentinel</code>. Circular suffixes which
+ * are equal (periodic input) end up in an arbitrary, but deterministic order.
+ * <p>
+ * The running time is O(n) and the recursion depth is O(log n) for any input.
+ *
+ * @see <a href="https://doi.org/10.1109/DCC.2009.42">Linear Suffix Array Construction by Almost
+ * Pure Induced-Sorting</a>
+ */
+public class SaisSuffixSorter implements SuffixSorter {
+
+    private static final int MAX_BYTE_VALUE = 255;
+
+    /**
+     * Size of the alphabet of the doubled text: the 256 byte values shifted by one and the
+     * sentinel (0)
+     */
+    private static final int ALPHABET_SIZE = 257;
+
+    @Override
+    public int[] sort(byte[] s) {
+        int n = s.length;
+        if (n <= 1) {
+            return new int[n];
+        }
+
+        // s + s + sentinel, with the byte values shifted by one to make the sentinel unique
+        int textLength = 2 * n + 1;
+        int[] text = new int[textLength];
+        for (int i = 0; i < n; i++) {
+            int c = (s[i] & MAX_BYTE_VALUE) + 1;
+            text[i] = c;
+            text[i + n] = c;
+        }
+        text[textLength - 1] = 0;
+
+        int[] sa = new int[textLength];
+        sais(text, sa, textLength, ALPHABET_SIZE);
+
+        // keep the suffixes starting in the first copy of s
+        int[] index = new int[n];
+        int j = 0;
+        for (int i = 0; i < textLength; i++) {
+            if (sa[i] < n) {
+                index[j++] = sa[i];
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Builds the suffix array of <code>s[0..n-1]</code>. The last character has to be the unique
+     * smallest character (the sentinel).
+     *
+     * @param s the text, values are between 0 and k - 1
+     * @param sa the suffix array to fill, at least n long
+     * @param n the length of the text
+     * @param k the size of the alphabet
+     */
+    private static void sais(int[] s, int[] sa, int n, int k) {
+        // classify the suffixes: true = S-type, false = L-type
+        boolean[] sType = new boolean[n];
+        sType[n - 1] = true;
+        for (int i = n - 2; i >= 0; i--) {
+            sType[i] = s[i] < s[i + 1] || (s[i] == s[i + 1] && sType[i + 1]);
+        }
+
+        int[] bucket = new int[k];
+
+        // stage 1: sort the LMS substrings by induced sorting
+        getBuckets(s, bucket, n, k, true);
+        Arrays.fill(sa, 0, n, -1);
+        for (int i = 1; i < n; i++) {
+            if (isLms(sType, i)) {
+                sa[--bucket[s[i]]] = i;
+            }
+        }
+        induceL(s, sa, sType, bucket, n, k);
+        induceS(s, sa, sType, bucket, n, k);
+
+        // compact the sorted LMS substrings into the first n1 items of sa
+        int n1 = 0;
+        for (int i = 0; i < n; i++) {
+            if (isLms(sType, sa[i])) {
+                sa[n1++] = sa[i];
+            }
+        }
+
+        // name the LMS substrings, equal substrings get the same name
+        Arrays.fill(sa, n1, n, -1);
+        int name = 0;
+        int previous = -1;
+        for (int i = 0; i < n1; i++) {
+            int position = sa[i];
+            boolean differ = false;
+            for (int d = 0; d < n; d++) {
+                if (previous == -1
+                        || s[position + d] != s[previous + d]
+                        || sType[position + d] != sType[previous + d]) {
+                    differ = true;
+                    break;
+                }
+                else if (d > 0 && (isLms(sType, position + d) || isLms(sType, previous + d))) {
+                    break;
+                }
+            }
+            if (differ) {
+                name++;
+                previous = position;
+            }
+            sa[n1 + position / 2] = name - 1;
+        }
+        int[] s1 = new int[n1];
+        for (int i = n - 1, j = n1 - 1; i >= n1; i--) {
+            if (sa[i] >= 0) {
+                s1[j--] = sa[i];
+            }
+        }
+
+        // stage 2: sort the reduced problem, recursing if the names are not unique yet
+        int[] sa1 = new int[n1];
+        if (name < n1) {
+            sais(s1, sa1, n1, name);
+        }
+        else {
+            for (int i = 0; i < n1; i++) {
+                sa1[s1[i]] = i;
+            }
+        }
+
+        // stage 3: induce the suffix array from the sorted LMS suffixes
+        for (int i = 1, j = 0; i < n; i++) {
+            if (isLms(sType, i)) {
+                s1[j++] = i;
+            }
+        }
+        for (int i = 0; i < n1; i++) {
+            sa1[i] = s1[sa1[i]];
+        }
+        Arrays.fill(sa, 0, n, -1);
+        getBuckets(s, bucket, n, k, true);
+        for (int i = n1 - 1; i >= 0; i--) {
+            int j = sa1[i];
+            sa[--bucket[s[j]]] = j;
+        }
+        induceL(s, sa, sType, bucket, n, k);
+        induceS(s, sa, sType, bucket, n, k);
+    }
+
+    /**
+     * Returns true if the suffix at position i is a leftmost S-type suffix
+     */
+    private static boolean isLms(boolean[] sType, int i) {
+        return i > 0 && sType[i] && !sType[i - 1];
+    }
+
+    /**
+     * Calculates the start (or end) positions of the buckets of each character
+     *
+     * @param s      the text
+     * @param bucket the array of the bucket positions to fill
+     * @param n      the length of the text
+     * @param k      the size of the alphabet
+     * @param end    true for the end of the buckets (exclusive), false for the start
+     */
+    private static void getBuckets(int[] s, int[] bucket, int n, int k, boolean end) {
+        Arrays.fill(bucket, 0, k, 0);
+        for (int i = 0; i < n; i++) {
+            bucket[s[i]]++;
+        }
+        int sum = 0;
+        for (int i = 0; i < k; i++) {
+            sum += bucket[i];
+            bucket[i] = end ? sum : sum - bucket[i];
+        }
+    }
+
+    /**
+     * Induces the order of the L-type suffixes from the sorted LMS suffixes
+     */
+    private static void induceL(int[] s, int[] sa, boolean[] sType, int[] bucket, int n, int k) {
+        getBuckets(s, bucket, n, k, false);
+        for (int i = 0; i < n; i++) {
+            int j = sa[i] - 1;
+            if (j >= 0 && !sType[j]) {
+                sa[bucket[s[j]]++] = j;
+            }
+        }
+    }
+
+    /**
+     * Induces the order of the S-type suffixes from the sorted L-type suffixes
+     */
+    private static void induceS(int[] s, int[] sa, boolean[] sType, int[] bucket, int n, int k) {
+        getBuckets(s, bucket, n, k, true);
+        for (int i = n - 1; i >= 0; i--) {
+            int j = sa[i] - 1;
+            if (j >= 0 && sType[j]) {
+                sa[--bucket[s[j]]] = j;
+            }
+        }
+    }
+}
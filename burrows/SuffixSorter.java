@@ -0,0 +1,15 @@
+/**
+ * Construction engine of the {@link CircularSuffixArray}. An implementation sorts all circular
+ * suffixes (rotations) of an 8-bit string.
+ */
+public interface SuffixSorter {
+
+    /**
+     * Sorts the circular suffixes of <code>s</code>. Each byte is treated as an unsigned value
+     * between 0 and 255.
+     *
+     * @param s the string to sort the circular suffixes of
+     * @return the index array: element i is the offset of the ith smallest circular suffix
+     */
+    int[] sort(byte[] s);
+}
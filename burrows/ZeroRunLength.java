@@ -0,0 +1,121 @@
+/**
+ * Zero run-length coding of the move-to-front output, like the RUNA/RUNB stage of bzip2.
+ * <p>
+ * The move-to-front output of Burrows-Wheeler transformed data is dominated by runs of zeros. A
+ * run of r zeros is written as the digits of r in bijective base 2 (least significant digit
+ * first), using the symbols {@value #RUNA} (digit 1) and {@value #RUNB} (digit 2), so a run takes
+ * about log2(r) symbols. The non-zero values v (1..255) are written as the symbol v + 1, giving an
+ * alphabet of {@value #ALPHABET_SIZE} symbols.
+ */
+public class ZeroRunLength {
+
+    /**
+     * Digit 1 of a zero run length
+     */
+    public static final int RUNA = 0;
+
+    /**
+     * Digit 2 of a zero run length
+     */
+    public static final int RUNB = 1;
+
+    /**
+     * Number of symbols: RUNA, RUNB and the values 1..255
+     */
+    public static final int ALPHABET_SIZE = 257;
+
+    private static final int MAX_BYTE_VALUE = 255;
+
+    /**
+     * Encodes <code>in[0..length-1]</code>
+     *
+     * @param in     the move-to-front output
+     * @param length the number of bytes to encode
+     * @param out    the array to store the symbols into, at least <code>length</code> long (the
+     *               encoding never expands)
+     * @return the number of symbols written
+     */
+    public static int encode(byte[] in, int length, int[] out) {
+        int count = 0;
+        int run = 0;
+        for (int i = 0; i < length; i++) {
+            int value = in[i] & MAX_BYTE_VALUE;
+            if (value == 0) {
+                run++;
+            }
+            else {
+                count = writeRun(run, out, count);
+                run = 0;
+                out[count++] = value + 1;
+            }
+        }
+        return writeRun(run, out, count);
+    }
+
+    /**
+     * Decodes <code>in[0..count-1]</code>
+     *
+     * @param in    the symbols
+     * @param count the number of symbols to decode
+     * @param out   the array to store the move-to-front values into
+     * @return the number of bytes written
+     */
+    public static int decode(int[] in, int count, byte[] out) {
+        int length = 0;
+        long run = 0;
+        int digitValue = 1;
+        for (int i = 0; i < count; i++) {
+            int symbol = in[i];
+            if (symbol == RUNA || symbol == RUNB) {
+                if (digitValue > out.length) {
+                    throw new IllegalArgumentException("Zero run is too long at symbol: " + i);
+                }
+                run += symbol == RUNA ? digitValue : 2L * digitValue;
+                digitValue <<= 1;
+            }
+            else {
+                length = fillRun(run, out, length);
+                run = 0;
+                digitValue = 1;
+                if (symbol > ALPHABET_SIZE - 1 || length >= out.length) {
+                    throw new IllegalArgumentException(
+                            String.format("Invalid symbol: %d at: %d", symbol, i));
+                }
+                out[length++] = (byte) (symbol - 1);
+            }
+        }
+        return fillRun(run, out, length);
+    }
+
+    /**
+     * Writes the run length in bijective base 2
+     *
+     * @param run   the number of zeros
+     * @param out   the symbol array
+     * @param count the number of symbols in out
+     * @return the new number of symbols in out
+     */
+    private static int writeRun(int run, int[] out, int count) {
+        while (run > 0) {
+            if ((run & 1) == 1) {
+                out[count++] = RUNA;
+                run = (run - 1) >> 1;
+            }
+            else {
+                out[count++] = RUNB;
+                run = (run - 2) >> 1;
+            }
+        }
+        return count;
+    }
+
+    private static int fillRun(long run, byte[] out, int length) {
+        if (run > out.length - length) {
+            throw new IllegalArgumentException("Zero run is too long: " + run);
+        }
+        for (int end = length + (int) run; length < end; length++) {
+            out[length] = 0;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,33 @@
+/**
+ * Calculates the dual-gradient energy of consecutive pixels of a row of a packed RGB buffer (see
+ * {@link SeamCarver}).
+ * <p>
+ * The energy of a pixel is the square root of the sum of the squared differences of the color
+ * components (R, G, B) of its left/right and top/bottom neighbours. The pixels must not be on the
+ * border of the picture. Implementations must return bit-identical results.
+ */
+interface EnergyKernel {
+
+    /**
+     * Calculates the energy of the pixels [index, index + length) of the buffer
+     *
+     * @param pixels the packed RGB values of the pixels
+     * @param stride the length of a row in the buffer
+     * @param index  the index of the first pixel
+     * @param length the number of pixels
+     * @param energy the buffer of the energies, with the same layout as the pixels
+     */
+    void calculate(int[] pixels, int stride, int index, int length, double[] energy);
+
+    /**
+     * Calculates the squared energy (the sum of the squared gradients, without the square root)
+     * of the pixels [index, index + length) of the buffer
+     *
+     * @param pixels        the packed RGB values of the pixels
+     * @param stride        the length of a row in the buffer
+     * @param index         the index of the first pixel
+     * @param length        the number of pixels
+     * @param squaredEnergy the buffer of the squared energies, with the same layout as the pixels
+     */
+    void calculateSquared(int[] pixels, int stride, int index, int length, int[] squaredEnergy);
+}
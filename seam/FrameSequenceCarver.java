@@ -0,0 +1,196 @@
+import edu.princeton.cs.algs4.Picture;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.File;
+
+/**
+ * Resizes the frames of a video (a sequence of pictures of the same size) to the same target size
+ * by seam carving, reusing the seams of the previous frame.
+ * <p>
+ * Consecutive frames are nearly identical, so are their seams. The first frame is carved with
+ * full seam searches ({@link SeamCarver#findSeam(boolean)}), the next frames search each seam only
+ * in a band around the seam removed at the same step of the previous frame ({@link
+ * SeamCarver#findSeamInBand(boolean, int[], int)}). If the energy of the seam found in the band
+ * drifts more than the tolerance above the energy of the seam found by the last full search at the
+ * same step (e.g. the scene changed), that seam is searched on the whole frame again. The band
+ * seams are not compared to each other, so small drifts cannot add up from frame to frame. Frames
+ * of a different size start a new sequence.
+ * <p>
+ * The vertical seams are removed first, then the horizontal ones. The buffers of the seam carvers
+ * are reused from frame to frame.
+ */
+public class FrameSequenceCarver {
+
+    private static final int DEFAULT_BAND = 8;
+    private static final double DEFAULT_TOLERANCE = 0.2;
+
+    private final int targetWidth;
+    private final int targetHeight;
+    private final int band;
+    private final double tolerance;
+    private final SeamCarver.Workspace workspace = new SeamCarver.Workspace();
+
+    /**
+     * The size of the previous frame and the seams removed from it in the order of removal, with
+     * the energies of the seams found by the last full search at each step (the anchors)
+     */
+    private int frameWidth;
+    private int frameHeight;
+    private int[][] verticalSeams;
+    private double[] verticalAnchors;
+    private int[][] horizontalSeams;
+    private double[] horizontalAnchors;
+
+    private long bandSearches;
+    private long fullSearches;
+
+    /**
+     * Creates a carver with the default band ({@value #DEFAULT_BAND}) and tolerance ({@value
+     * #DEFAULT_TOLERANCE})
+     *
+     * @param targetWidth  the width of the resized frames
+     * @param targetHeight the height of the resized frames
+     */
+    public FrameSequenceCarver(int targetWidth, int targetHeight) {
+        this(targetWidth, targetHeight, DEFAULT_BAND, DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * Creates a carver
+     *
+     * @param targetWidth  the width of the resized frames
+     * @param targetHeight the height of the resized frames
+     * @param band         the maximum distance of a seam from the seam of the previous frame in
+     *                     each row/column
+     * @param tolerance    the maximum relative increase of the energy of a seam compared to the
+     *                     seam of the last full search before searching the whole frame
+     */
+    public FrameSequenceCarver(int targetWidth, int targetHeight, int band, double tolerance) {
+        if (targetWidth < 1 || targetHeight < 1 || band < 0 || tolerance < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Wrong target width: %d, height: %d, band: %d or tolerance: %f",
+                    targetWidth, targetHeight, band, tolerance));
+        }
+        this.targetWidth = targetWidth;
+        this.targetHeight = targetHeight;
+        this.band = band;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Resizes the next frame of the sequence
+     * <p>
+     * Throw a java.lang.IllegalArgumentException if the frame is null or smaller than the target
+     * size.
+     *
+     * @param frame the frame
+     * @return the resized frame
+     */
+    public Picture carve(Picture frame) {
+        if (frame == null || frame.width() < targetWidth || frame.height() < targetHeight) {
+            throw new IllegalArgumentException();
+        }
+        if (frame.width() != frameWidth || frame.height() != frameHeight) {
+            // new sequence
+            frameWidth = frame.width();
+            frameHeight = frame.height();
+            verticalSeams = null;
+            horizontalSeams = null;
+        }
+
+        SeamCarver seamCarver = new SeamCarver(frame, null, false,
+                                               SeamCarver.EnergyFunction.BACKWARD, workspace);
+
+        int verticalCount = frameWidth - targetWidth;
+        int[][] seams = new int[verticalCount][];
+        double[] anchors = new double[verticalCount];
+        for (int i = 0; i < verticalCount; i++) {
+            seams[i] = findSeam(seamCarver, true, verticalSeams, verticalAnchors, anchors, i);
+            seamCarver.removeVerticalSeam(seams[i]);
+        }
+        verticalSeams = seams;
+        verticalAnchors = anchors;
+
+        int horizontalCount = frameHeight - targetHeight;
+        seams = new int[horizontalCount][];
+        anchors = new double[horizontalCount];
+        for (int i = 0; i < horizontalCount; i++) {
+            seams[i] = findSeam(seamCarver, false, horizontalSeams, horizontalAnchors, anchors,
+                                i);
+            seamCarver.removeHorizontalSeam(seams[i]);
+        }
+        horizontalSeams = seams;
+        horizontalAnchors = anchors;
+
+        return seamCarver.picture();
+    }
+
+    /**
+     * Finds the next seam in the band around the seam of the previous frame, or on the whole frame
+     * if there is no previous frame or the energy of the seam drifted above the anchor
+     *
+     * @param seamCarver      the {@link SeamCarver} of the frame
+     * @param vertical        true for a vertical, false for a horizontal seam
+     * @param previousSeams   the seams of the previous frame, null for the first frame
+     * @param previousAnchors the anchors of the previous frame
+     * @param anchors         the anchors of the frame, the anchor of the seam is set: the energy
+     *                        of the seam after a full search, the previous anchor otherwise
+     * @param i               the index of the seam
+     * @return the seam
+     */
+    private int[] findSeam(SeamCarver seamCarver, boolean vertical, int[][] previousSeams,
+                           double[] previousAnchors, double[] anchors, int i) {
+        if (previousSeams != null) {
+            SeamCarver.Path path = seamCarver.findSeamInBand(vertical, previousSeams[i], band);
+            if (path.distance() <= previousAnchors[i] * (1 + tolerance)) {
+                bandSearches++;
+                anchors[i] = previousAnchors[i];
+                return path.steps();
+            }
+        }
+        fullSearches++;
+        SeamCarver.Path path = seamCarver.findSeam(vertical);
+        anchors[i] = path.distance();
+        return path.steps();
+    }
+
+    /**
+     * Returns the number of seams found in the band around the seam of the previous frame
+     */
+    public long getBandSearches() {
+        return bandSearches;
+    }
+
+    /**
+     * Returns the number of seams found by searching the whole frame
+     */
+    public long getFullSearches() {
+        return fullSearches;
+    }
+
+    /**
+     * Resizes the frames (local picture files), saving them with the same name into the output
+     * directory.
+     * <p>
+     * Usage: <code>java FrameSequenceCarver targetWidth targetHeight outputDirectory
+     * frame...</code>
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        FrameSequenceCarver carver = new FrameSequenceCarver(Integer.parseInt(args[0]),
+                                                             Integer.parseInt(args[1]));
+        File outputDirectory = new File(args[2]);
+
+        long start = System.nanoTime();
+        for (int i = 3; i < args.length; i++) {
+            File input = new File(args[i]);
+            carver.carve(new Picture(input)).save(new File(outputDirectory, input.getName()));
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        StdOut.printf("%d frames in %.3f s (%.2f frames/s), seams in band: %d, full: %d\n",
+                      args.length - 3, seconds, (args.length - 3) / seconds,
+                      carver.getBandSearches(), carver.getFullSearches());
+    }
+}
@@ -1,22 +1,46 @@
 import edu.princeton.cs.algs4.Picture;
 import edu.princeton.cs.algs4.StdOut;
 
-import java.awt.Color;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Optimization possibilities:
  * <ul>
  * <li>Do not store the edges leading from the child pixel to its parent pixel in the seam. It is
  * possible to calculate the path from the calculated distances assigned to each pixel</li>
- * <li>Remove code duplication horizontal/vertical methods by using a flag to indicate if it is
- * vertical or horizontal mode used. In horizontal mode, each x and y coordinates, width and height
- * values are swapped. In this way only one set of methods (e.g.: the vertical ones) needs to be
- * implemented</li>
  * <li>Optimize energy calculation by using two pass (horizontal, vertical) with sliding
  * window</li>
  * </ul>
  * <p>
+ * The pixels and energies are stored in buffers that are either in the orientation of the picture
+ * (rows of the buffer are the rows of the picture) or transposed (rows of the buffer are the
+ * columns of the picture). Seams are always found and removed as vertical seams of the buffer,
+ * walking the buffer row by row: the buffers are transposed when the direction of the seam changes,
+ * so a horizontal seam is a vertical seam of the transposed buffer.
+ * <p>
+ * In the parallel mode (created with a {@link ForkJoinPool}) the energy of the picture and the
+ * seam cost table are calculated by splitting the rows across the pool: each row of the table
+ * depends only on the previous row, so the rows are relaxed one after the other and the columns of
+ * a row in parallel. The results are the same as in the serial mode.
+ * <p>
+ * The energy of whole rows is calculated by an {@link EnergyKernel}: the {@link
+ * VectorEnergyKernel} if the Vector API is available (run with <code>--add-modules
+ * jdk.incubator.vector</code>), otherwise a scalar one. Both give bit-identical energies.
+ * <p>
+ * In the compact mode the energies are stored as int squared gradients (the square root is taken
+ * when a pixel is relaxed) and the seam cost tables keep only two rolling rows of distances and a
+ * byte direction per pixel: 5 bytes per pixel instead of 17 for the energy and the table. The
+ * seams are the same as in the default mode, but the tables cannot be updated incrementally, so
+ * they are recalculated after each seam removal.
+ * <p>
+ * The seams minimize the backward (dual-gradient) energy by default. With the {@link
+ * EnergyFunction#FORWARD} energy function the seams minimize the forward energy instead: the energy
+ * inserted into the picture by removing the seam, i.e. the gradients between the pixels that become
+ * neighbours. The forward costs depend on the parent of the pixel, so they are calculated from the
+ * pixels while the seam cost table is relaxed, and no energy buffer is kept at all.
+ * <p>
  * Notes from the specification:
  * <ul>
  * <li>Corner cases. Your code should throw a java.lang.IllegalArgumentException when a constructor
@@ -32,7 +56,138 @@ import java.util.Arrays;
  */
 public class SeamCarver {
 
-    private Picture picture;
+    private static final double BORDER_ENERGY = 1000;
+    private static final int BORDER_SQUARED_ENERGY = 1000 * 1000;
+
+    /**
+     * Size of the square tiles used when transposing the buffers
+     */
+    private static final int TRANSPOSE_TILE_SIZE = 32;
+
+    /**
+     * Minimum number of pixels processed by one task in the parallel mode
+     */
+    private static final int PARALLEL_THRESHOLD = 2048;
+
+    /**
+     * The kernel calculating the energy of the rows
+     */
+    private static final EnergyKernel ENERGY_KERNEL = loadEnergyKernel();
+
+    /**
+     * The pool of the parallel mode, null in the serial mode
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The order of the vertical and horizontal seams removed by {@link #resizeTo(int, int,
+     * SeamOrder)}
+     */
+    public enum SeamOrder {
+        /**
+         * Remove the vertical seams first, then the horizontal ones: the buffers are transposed
+         * only once
+         */
+        VERTICAL_FIRST,
+        /**
+         * Remove the horizontal seams first, then the vertical ones
+         */
+        HORIZONTAL_FIRST,
+        /**
+         * Remove vertical and horizontal seams alternately while both are needed
+         */
+        ALTERNATE,
+        /**
+         * Remove the seam with the lower average energy per pixel of the next vertical and the next
+         * horizontal seam (greedy). Removing a seam invalidates the seam cost table of the other
+         * direction, so each step recalculates a whole table.
+         */
+        CHEAPEST
+    }
+
+    /**
+     * The energy minimized by the seams
+     */
+    public enum EnergyFunction {
+        /**
+         * The dual-gradient energy of the removed pixels ({@link #energy(int, int)}), calculated
+         * for the whole picture and kept up to date in the energy buffer
+         */
+        BACKWARD,
+        /**
+         * The forward energy: the sum of the gradients between the pixels that become neighbours
+         * when the seam is removed. It is calculated while relaxing the seam cost table, there is
+         * no energy buffer.
+         */
+        FORWARD
+    }
+
+    /**
+     * The energy function of the seams
+     */
+    private final EnergyFunction energyFunction;
+
+    private int width;
+    private int height;
+
+    /**
+     * True if the rows of the buffers are the columns of the picture
+     */
+    private boolean transposed;
+
+    /**
+     * Length of a row in the buffers. Seams are removed in place, so the rows are not compacted
+     * until {@link #picture()} is called or the buffers are transposed, the stride can be larger
+     * than the length of the rows.
+     */
+    private int stride;
+
+    /**
+     * Packed RGB value of each pixel (index = stride * row + column of the buffer), as returned by
+     * {@link Picture#getRGB(int, int)}. The {@link Picture} is created only when {@link #picture()}
+     * is called.
+     */
+    private int[] pixels;
+
+    /**
+     * True in the compact mode: the energies are stored in the {@link #squaredEnergyBuffer}, the
+     * seam cost tables have two rolling rows of distances
+     */
+    private final boolean compact;
+
+    /**
+     * Energy of each pixel (index = stride * row + column of the buffer), kept up to date when a
+     * seam is removed: only the pixels next to the removed seam are recalculated. Null in the
+     * compact mode and with the forward energy function.
+     */
+    private double[] energyBuffer;
+
+    /**
+     * Squared energy of each pixel in the compact mode, the same way as the {@link #energyBuffer}.
+     * Null in the default mode and with the forward energy function.
+     */
+    private int[] squaredEnergyBuffer;
+
+    /**
+     * Buffers of the other orientation, reused by each transposition
+     */
+    private int[] transposedPixels;
+    private double[] transposedEnergyBuffer;
+    private int[] transposedSquaredEnergyBuffer;
+
+    /**
+     * The arrays of the buffers and tables, reusable by another seam carver when this one is not
+     * used anymore
+     */
+    private final Workspace workspace;
+
+    /**
+     * Cached vertical/horizontal seam cost tables, null if not calculated yet or invalidated by
+     * removing a seam of the other direction. The vertical one is in the orientation of the
+     * picture, the horizontal one is transposed.
+     */
+    private MinimumEnergyPath verticalPath;
+    private MinimumEnergyPath horizontalPath;
 
     /**
      * The data type may not mutate the Picture argument to the constructor.
@@ -45,69 +200,452 @@ public class SeamCarver {
      * @param picture the {@link Picture}
      */
     public SeamCarver(Picture picture) {
-        if (picture == null) {
+        this(picture, null);
+    }
+
+    /**
+     * Create a seam carver object based on the given picture, calculating the energies and seams
+     * with the tasks of the pool.
+     *
+     * @param picture the {@link Picture}
+     * @param pool    the {@link ForkJoinPool} of the parallel mode, null for the serial mode
+     */
+    public SeamCarver(Picture picture, ForkJoinPool pool) {
+        this(picture, pool, false);
+    }
+
+    /**
+     * Create a seam carver object based on the given picture, in the parallel and/or compact mode.
+     *
+     * @param picture the {@link Picture}
+     * @param pool    the {@link ForkJoinPool} of the parallel mode, null for the serial mode
+     * @param compact true for the compact mode (less memory, no incremental update of the seam
+     *                cost tables)
+     */
+    public SeamCarver(Picture picture, ForkJoinPool pool, boolean compact) {
+        this(picture, pool, compact, EnergyFunction.BACKWARD);
+    }
+
+    /**
+     * Create a seam carver object based on the given picture, in the parallel and/or compact mode,
+     * finding the seams by the given energy function.
+     *
+     * @param picture        the {@link Picture}
+     * @param pool           the {@link ForkJoinPool} of the parallel mode, null for the serial
+     *                       mode
+     * @param compact        true for the compact mode
+     * @param energyFunction the {@link EnergyFunction}
+     */
+    public SeamCarver(Picture picture, ForkJoinPool pool, boolean compact,
+                      EnergyFunction energyFunction) {
+        this(picture, pool, compact, energyFunction, new Workspace());
+    }
+
+    /**
+     * Create a seam carver object based on the given picture, using the arrays of the {@link
+     * Workspace} (if they are large enough) for its buffers and tables
+     *
+     * @param picture        the {@link Picture}
+     * @param pool           the {@link ForkJoinPool} of the parallel mode, null for the serial
+     *                       mode
+     * @param compact        true for the compact mode
+     * @param energyFunction the {@link EnergyFunction}
+     * @param workspace      the {@link Workspace}, not used by any other seam carver while this
+     *                       one is in use
+     */
+    SeamCarver(Picture picture, ForkJoinPool pool, boolean compact, EnergyFunction energyFunction,
+               Workspace workspace) {
+        if (picture == null || energyFunction == null) {
             throw new IllegalArgumentException();
         }
+        this.pool = pool;
+        this.compact = compact;
+        this.energyFunction = energyFunction;
+        this.workspace = workspace;
         // make a copy to avoid mutability
-        this.picture = new Picture(picture);
+        this.width = picture.width();
+        this.height = picture.height();
+        this.stride = width;
+        workspace.pixels = Workspace.ensure(workspace.pixels, width * height);
+        this.pixels = workspace.pixels;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[getIndex(x, y)] = picture.getRGB(x, y);
+            }
+        }
+
+        if (energyFunction == EnergyFunction.FORWARD) {
+            // the forward costs are calculated by the seam cost tables
+            return;
+        }
+        if (compact) {
+            workspace.squaredEnergies = Workspace.ensure(workspace.squaredEnergies, width * height);
+            this.squaredEnergyBuffer = workspace.squaredEnergies;
+        }
+        else {
+            workspace.energies = Workspace.ensure(workspace.energies, width * height);
+            this.energyBuffer = workspace.energies;
+        }
+        forEach(0, getRows(), Math.max(1, PARALLEL_THRESHOLD / getColumns()), (from, to) -> {
+            for (int row = from; row < to; row++) {
+                calculateEnergy(row);
+            }
+        });
+    }
+
+    /**
+     * Returns the {@link VectorEnergyKernel} if the Vector API module is available, the {@link
+     * ScalarEnergyKernel} otherwise. The vector kernel is loaded by reflection, so this class does
+     * not depend on the incubator module.
+     *
+     * @return the {@link EnergyKernel}
+     */
+    private static EnergyKernel loadEnergyKernel() {
+        try {
+            return (EnergyKernel) Class.forName("VectorEnergyKernel").getDeclaredConstructor()
+                                       .newInstance();
+        }
+        catch (ReflectiveOperationException | LinkageError e) {
+            return new ScalarEnergyKernel();
+        }
+    }
+
+    /**
+     * Runs the action for the range: split into subranges across the pool in the parallel mode,
+     * or in the calling thread in the serial mode. Returns when the whole range is processed.
+     *
+     * @param from      the start of the range (inclusive)
+     * @param to        the end of the range (exclusive)
+     * @param threshold the maximum length of a subrange
+     * @param action    the action to run for each subrange
+     */
+    private void forEach(int from, int to, int threshold, RangeAction action) {
+        if (pool == null || to - from <= threshold) {
+            action.run(from, to);
+        }
+        else {
+            pool.invoke(new RangeTask(from, to, threshold, action));
+        }
     }
 
     /**
      * current picture
      */
     public Picture picture() {
+        compact();
+
         // return a copy to avoid mutability
-        return new Picture(picture);
+        Picture picture = new Picture(width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                picture.setRGB(x, y, pixels[getIndex(x, y)]);
+            }
+        }
+        return picture;
+    }
+
+    /**
+     * Moves the rows of the buffers (and of the seam cost table of the current orientation) next
+     * to each other, so the stride is equal to the length of the rows again. The buffers are not
+     * reallocated.
+     */
+    private void compact() {
+        if (stride == getColumns()) {
+            return;
+        }
+        compact(pixels);
+        if (hasEnergyBuffer()) {
+            compact(getEnergies());
+        }
+        MinimumEnergyPath path = transposed ? horizontalPath : verticalPath;
+        if (path != null) {
+            path.compact();
+        }
+        stride = getColumns();
+    }
+
+    /**
+     * Returns true if the energies are stored in a buffer (backward energy function)
+     */
+    private boolean hasEnergyBuffer() {
+        return energyFunction == EnergyFunction.BACKWARD;
+    }
+
+    /**
+     * Returns the energy buffer of the current mode
+     *
+     * @return the {@link #squaredEnergyBuffer} in the compact mode, the {@link #energyBuffer}
+     * otherwise
+     */
+    private Object getEnergies() {
+        return compact ? squaredEnergyBuffer : energyBuffer;
+    }
+
+    /**
+     * Returns the energy of the pixel from the energy buffer
+     *
+     * @param index the index of the pixel in the buffers
+     * @return the energy
+     */
+    private double getEnergy(int index) {
+        return compact ? Math.sqrt(squaredEnergyBuffer[index]) : energyBuffer[index];
+    }
+
+    /**
+     * Returns the forward cost of removing the pixel (the child) after its parent straight above:
+     * the gradient between its left and right neighbours, which become neighbours. The missing
+     * neighbour of a pixel at the border is the pixel itself.
+     *
+     * @param index  the index of the pixel in the buffers
+     * @param column the column of the pixel
+     * @return the forward cost
+     */
+    private double getForwardUpCost(int index, int column) {
+        int left = column > 0 ? index - 1 : index;
+        int right = column < getColumns() - 1 ? index + 1 : index;
+        return Math.sqrt(gradientSquared(pixels[left], pixels[right]));
+    }
+
+    /**
+     * Returns the additional forward cost of removing the pixel after a diagonal parent: the
+     * gradient between the pixel above and the neighbour of the pixel on the side of the parent,
+     * which become neighbours
+     *
+     * @param index     the index of the pixel in the buffers
+     * @param neighbour the index of the left or right neighbour of the pixel
+     * @return the cost added to the {@link #getForwardUpCost(int, int)}
+     */
+    private double getForwardSideCost(int index, int neighbour) {
+        return Math.sqrt(gradientSquared(pixels[index - stride], pixels[neighbour]));
+    }
+
+    /**
+     * Moves the rows of the buffer next to each other
+     *
+     * @param buffer the buffer (a primitive array) with rows of stride length
+     */
+    private void compact(Object buffer) {
+        for (int row = 1; row < getRows(); row++) {
+            System.arraycopy(buffer, stride * row, buffer, getColumns() * row, getColumns());
+        }
+    }
+
+    /**
+     * Switches the buffers to the orientation of the seam direction if needed.
+     * <p>
+     * The seam cost table of the current orientation is compacted with the buffers, and it stays
+     * valid while no seam is removed in the other orientation.
+     *
+     * @param vertical true for vertical seams (buffers in the orientation of the picture), false
+     *                 for horizontal seams (transposed buffers)
+     */
+    private void orient(boolean vertical) {
+        if (transposed != vertical) {
+            return;
+        }
+        compact();
+        if (transposedPixels == null) {
+            int length = getRows() * getColumns();
+            workspace.transposedPixels = Workspace.ensure(workspace.transposedPixels, length);
+            transposedPixels = workspace.transposedPixels;
+            if (hasEnergyBuffer()) {
+                if (compact) {
+                    workspace.transposedSquaredEnergies =
+                            Workspace.ensure(workspace.transposedSquaredEnergies, length);
+                    transposedSquaredEnergyBuffer = workspace.transposedSquaredEnergies;
+                }
+                else {
+                    workspace.transposedEnergies =
+                            Workspace.ensure(workspace.transposedEnergies, length);
+                    transposedEnergyBuffer = workspace.transposedEnergies;
+                }
+            }
+        }
+        transpose(pixels, transposedPixels);
+        int[] swapPixels = pixels;
+        pixels = transposedPixels;
+        transposedPixels = swapPixels;
+        if (hasEnergyBuffer()) {
+            if (compact) {
+                transpose(squaredEnergyBuffer, transposedSquaredEnergyBuffer);
+                int[] swapSquaredEnergyBuffer = squaredEnergyBuffer;
+                squaredEnergyBuffer = transposedSquaredEnergyBuffer;
+                transposedSquaredEnergyBuffer = swapSquaredEnergyBuffer;
+            }
+            else {
+                transpose(energyBuffer, transposedEnergyBuffer);
+                double[] swapEnergyBuffer = energyBuffer;
+                energyBuffer = transposedEnergyBuffer;
+                transposedEnergyBuffer = swapEnergyBuffer;
+            }
+        }
+
+        transposed = !transposed;
+        stride = getColumns();
+    }
+
+    /**
+     * Transposes the compacted buffer in square tiles
+     *
+     * @param from the buffer to transpose
+     * @param to   the transposed buffer
+     */
+    private void transpose(int[] from, int[] to) {
+        int rows = getRows();
+        int columns = getColumns();
+        for (int rowTile = 0; rowTile < rows; rowTile += TRANSPOSE_TILE_SIZE) {
+            for (int columnTile = 0; columnTile < columns; columnTile += TRANSPOSE_TILE_SIZE) {
+                int rowEnd = Math.min(rowTile + TRANSPOSE_TILE_SIZE, rows);
+                int columnEnd = Math.min(columnTile + TRANSPOSE_TILE_SIZE, columns);
+                for (int column = columnTile; column < columnEnd; column++) {
+                    for (int row = rowTile; row < rowEnd; row++) {
+                        to[rows * column + row] = from[columns * row + column];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Transposes the compacted buffer in square tiles
+     *
+     * @param from the buffer to transpose
+     * @param to   the transposed buffer
+     */
+    private void transpose(double[] from, double[] to) {
+        int rows = getRows();
+        int columns = getColumns();
+        for (int rowTile = 0; rowTile < rows; rowTile += TRANSPOSE_TILE_SIZE) {
+            for (int columnTile = 0; columnTile < columns; columnTile += TRANSPOSE_TILE_SIZE) {
+                int rowEnd = Math.min(rowTile + TRANSPOSE_TILE_SIZE, rows);
+                int columnEnd = Math.min(columnTile + TRANSPOSE_TILE_SIZE, columns);
+                for (int column = columnTile; column < columnEnd; column++) {
+                    for (int row = rowTile; row < rowEnd; row++) {
+                        to[rows * column + row] = from[columns * row + column];
+                    }
+                }
+            }
+        }
     }
 
     /**
      * energy of pixel at column x and row y
+     * <p>
+     * The dual-gradient energy, also with the forward energy function (calculated on demand, as
+     * there is no energy buffer).
      */
     public double energy(int x, int y) {
-        if (x < 0 || y < 0 || x >= picture.width() || y >= picture.height()) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
             throw new IllegalArgumentException(
                     String.format("Wrong x: %d or y: %d for width: %d, height: %d", x, y, width(),
                                   height()));
         }
-        if (x == 0 || y == 0 || x == picture.width() - 1 || y == picture.height() - 1) {
-            return 1000;
+        if (!hasEnergyBuffer()) {
+            return transposed ? Math.sqrt(calculateSquaredEnergy(y, x))
+                              : Math.sqrt(calculateSquaredEnergy(x, y));
+        }
+        return getEnergy(getIndex(x, y));
+    }
+
+    /**
+     * Calculates the energy of each pixel of a row of the buffers
+     *
+     * @param row the row of the buffer
+     */
+    private void calculateEnergy(int row) {
+        int index = stride * row;
+        if (compact) {
+            if (row == 0 || row == getRows() - 1 || getColumns() <= 2) {
+                Arrays.fill(squaredEnergyBuffer, index, index + getColumns(),
+                            BORDER_SQUARED_ENERGY);
+            }
+            else {
+                squaredEnergyBuffer[index] = BORDER_SQUARED_ENERGY;
+                squaredEnergyBuffer[index + getColumns() - 1] = BORDER_SQUARED_ENERGY;
+                ENERGY_KERNEL.calculateSquared(pixels, stride, index + 1, getColumns() - 2,
+                                               squaredEnergyBuffer);
+            }
+        }
+        else {
+            if (row == 0 || row == getRows() - 1 || getColumns() <= 2) {
+                Arrays.fill(energyBuffer, index, index + getColumns(), BORDER_ENERGY);
+            }
+            else {
+                energyBuffer[index] = BORDER_ENERGY;
+                energyBuffer[index + getColumns() - 1] = BORDER_ENERGY;
+                ENERGY_KERNEL.calculate(pixels, stride, index + 1, getColumns() - 2,
+                                        energyBuffer);
+            }
         }
+    }
 
-        Color left = picture.get(x - 1, y);
-        Color right = picture.get(x + 1, y);
-        Color top = picture.get(x, y - 1);
-        Color bottom = picture.get(x, y + 1);
+    /**
+     * Calculates the square of the dual-gradient energy of a pixel. The energy does not depend on
+     * the orientation, so it is calculated by the coordinates of the buffer.
+     *
+     * @param column the column of the buffer
+     * @param row    the row of the buffer
+     * @return the squared energy of the pixel
+     */
+    private int calculateSquaredEnergy(int column, int row) {
+        if (column == 0 || row == 0 || column == getColumns() - 1 || row == getRows() - 1) {
+            return BORDER_SQUARED_ENERGY;
+        }
 
-        return Math.sqrt(substract(right, left).squared() + substract(bottom, top).squared());
+        int index = stride * row + column;
+        return gradientSquared(pixels[index + 1], pixels[index - 1])
+                + gradientSquared(pixels[index + stride], pixels[index - stride]);
     }
 
     // width of current picture
     public int width() {
-        return picture.width();
+        return width;
     }
 
     // height of current picture
     public int height() {
-        return picture.height();
+        return height;
     }
 
     /**
-     * Returns a {@link ColorResult} containing the substraction of each color component (R, G, B).
-     * {@link Color} does not support negative values, so the {@link ColorResult} value object is
-     * used instead.
+     * Returns the number of columns of the buffers: the width, or the height if transposed
+     */
+    private int getColumns() {
+        return transposed ? height : width;
+    }
+
+    /**
+     * Returns the number of rows of the buffers: the height, or the width if transposed
+     */
+    private int getRows() {
+        return transposed ? width : height;
+    }
+
+    /**
+     * Returns the index of the pixel in the buffers
      *
-     * @param first  the first {@link Color}
-     * @param second the second {@link Color}
-     * @return the result of the substraction of the second color from the first color
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the index = stride * y + x, or stride * x + y if transposed
      */
-    private ColorResult substract(Color first, Color second) {
-        return new ColorResult(
-                first.getRed() - second.getRed(),
-                first.getGreen() - second.getGreen(),
-                first.getBlue() - second.getBlue()
-        );
+    private int getIndex(int x, int y) {
+        return transposed ? stride * x + y : stride * y + x;
     }
 
+    /**
+     * Returns the square of the difference of two packed RGB colors: the sum of the squared
+     * differences of each color component (R, G, B)
+     *
+     * @param first  the first packed RGB color
+     * @param second the second packed RGB color
+     * @return the squared gradient
+     */
+    private static int gradientSquared(int first, int second) {
+        int r = ((first >> 16) & 0xFF) - ((second >> 16) & 0xFF);
+        int g = ((first >> 8) & 0xFF) - ((second >> 8) & 0xFF);
+        int b = (first & 0xFF) - (second & 0xFF);
+        return r * r + g * g + b * b;
+    }
 
     /**
      * sequence of indices for horizontal seam
@@ -119,9 +657,7 @@ public class SeamCarver {
      * @return the horizontal seam
      */
     public int[] findHorizontalSeam() {
-        MinimumEnergyPath minimumEnergyPath = new MinimumEnergyPath(this, width(), height(), false);
-        Path path = minimumEnergyPath.shortestPathHorizontal();
-        return path.steps;
+        return findSeam(false).steps;
     }
 
 
@@ -134,9 +670,249 @@ public class SeamCarver {
      * @return the vertical seam
      */
     public int[] findVerticalSeam() {
-        MinimumEnergyPath minimumEnergyPath = new MinimumEnergyPath(this, width(), height(), true);
-        Path path = minimumEnergyPath.shortestPathVertical();
-        return path.steps;
+        return findSeam(true).steps;
+    }
+
+    /**
+     * Finds the vertical or horizontal seam, using the cached seam cost table if it is valid
+     *
+     * @param vertical true for a vertical, false for a horizontal seam
+     * @return the {@link Path} of the seam
+     */
+    Path findSeam(boolean vertical) {
+        orient(vertical);
+        if (vertical) {
+            if (verticalPath == null) {
+                verticalPath = new MinimumEnergyPath(this, true);
+            }
+            return verticalPath.getPath();
+        }
+        else {
+            if (horizontalPath == null) {
+                horizontalPath = new MinimumEnergyPath(this, false);
+            }
+            return horizontalPath.getPath();
+        }
+    }
+
+    /**
+     * Finds the vertical or horizontal seam with the minimum energy among the seams staying inside
+     * a band around the guide seam (e.g. the seam of the previous frame of a video). Only the
+     * pixels of the band are relaxed, with two rolling rows of distances, and the cached seam cost
+     * tables are not used. If the band covers the whole picture, the seam is the same as the one
+     * found by {@link #findSeam(boolean)}.
+     * <p>
+     * Throw a java.lang.IllegalArgumentException if the guide has a wrong length or the band is
+     * negative.
+     *
+     * @param vertical true for a vertical, false for a horizontal seam
+     * @param guide    the guide seam, the entries are clamped to the current width/height
+     * @param band     the maximum distance of the seam from the guide in each row/column
+     * @return the {@link Path} of the seam
+     */
+    Path findSeamInBand(boolean vertical, int[] guide, int band) {
+        if (guide == null || guide.length != (vertical ? height : width) || band < 0) {
+            throw new IllegalArgumentException(
+                    String.format("Wrong guide seam or band: %d for width: %d, height: %d", band,
+                                  width, height));
+        }
+        orient(vertical);
+        int rows = getRows();
+        int columns = getColumns();
+        int window = 2 * band + 1;
+        double[] previous = new double[window];
+        double[] current = new double[window];
+        byte[] edges = new byte[rows * window];
+
+        // the first row has 0 distances
+        int previousFrom = getBandFrom(guide[0], band);
+        int previousTo = getBandTo(guide[0], band);
+        for (int row = 1; row < rows; row++) {
+            int from = getBandFrom(guide[row], band);
+            int to = getBandTo(guide[row], band);
+            for (int column = from; column <= to; column++) {
+                int index = stride * row + column;
+                double distance = Double.POSITIVE_INFINITY;
+                int parent = column;
+                int parentFrom = Math.max(column - 1, previousFrom);
+                int parentTo = Math.min(column + 1, previousTo);
+
+                // the energy of the pixel after the upper, left and right parent
+                double upEnergy;
+                double leftEnergy = 0;
+                double rightEnergy = 0;
+                if (energyFunction == EnergyFunction.FORWARD) {
+                    upEnergy = getForwardUpCost(index, column);
+                    if (parentFrom < column) {
+                        leftEnergy = upEnergy + getForwardSideCost(index, index - 1);
+                    }
+                    if (parentTo > column) {
+                        rightEnergy = upEnergy + getForwardSideCost(index, index + 1);
+                    }
+                }
+                else {
+                    upEnergy = getEnergy(index);
+                    leftEnergy = upEnergy;
+                    rightEnergy = upEnergy;
+                }
+
+                for (int parentColumn = parentFrom; parentColumn <= parentTo; parentColumn++) {
+                    double energy = parentColumn == column ? upEnergy
+                            : parentColumn < column ? leftEnergy : rightEnergy;
+                    double parentDistancePlusEnergy = previous[parentColumn - previousFrom] + energy;
+                    if (distance > parentDistancePlusEnergy) {
+                        distance = parentDistancePlusEnergy;
+                        parent = parentColumn;
+                    }
+                }
+                current[column - from] = distance;
+                edges[row * window + column - from] = (byte) (parent - column);
+            }
+
+            double[] swap = previous;
+            previous = current;
+            current = swap;
+            previousFrom = from;
+            previousTo = to;
+        }
+
+        // find minimum distance at the last row
+        int minColumn = -1;
+        double minValue = Double.MAX_VALUE;
+        for (int column = previousFrom; column <= previousTo; column++) {
+            if (previous[column - previousFrom] < minValue) {
+                minValue = previous[column - previousFrom];
+                minColumn = column;
+            }
+        }
+
+        int[] steps = new int[rows];
+        int column = minColumn;
+        for (int row = rows - 1; row >= 0; row--) {
+            steps[row] = column;
+            column += edges[row * window + column - getBandFrom(guide[row], band)];
+        }
+        return new Path(steps, minValue);
+    }
+
+    /**
+     * Returns the first column of the band around the guide column in the buffers
+     */
+    private int getBandFrom(int guide, int band) {
+        return Math.max(Math.min(guide, getColumns() - 1) - band, 0);
+    }
+
+    /**
+     * Returns the last column of the band around the guide column in the buffers
+     */
+    private int getBandTo(int guide, int band) {
+        return Math.min(Math.max(guide, 0) + band, getColumns() - 1);
+    }
+
+    /**
+     * Removes k vertical seams from the current picture, finding and removing them one by one on
+     * the buffers of the seam carver
+     * <p>
+     * Throw a java.lang.IllegalArgumentException if k is negative or not less than the width.
+     *
+     * @param k the number of seams to remove
+     */
+    public void removeVerticalSeams(int k) {
+        if (k < 0 || k >= width) {
+            throw new IllegalArgumentException(
+                    String.format("Wrong number of seams: %d for width: %d", k, width));
+        }
+        carve(width - k, height, SeamOrder.VERTICAL_FIRST);
+    }
+
+    /**
+     * Removes k horizontal seams from the current picture, finding and removing them one by one on
+     * the buffers of the seam carver
+     * <p>
+     * Throw a java.lang.IllegalArgumentException if k is negative or not less than the height.
+     *
+     * @param k the number of seams to remove
+     */
+    public void removeHorizontalSeams(int k) {
+        if (k < 0 || k >= height) {
+            throw new IllegalArgumentException(
+                    String.format("Wrong number of seams: %d for height: %d", k, height));
+        }
+        carve(width, height - k, SeamOrder.HORIZONTAL_FIRST);
+    }
+
+    /**
+     * Resizes the current picture to the target size by removing vertical seams first, then
+     * horizontal seams
+     *
+     * @param targetWidth  the width of the resized picture
+     * @param targetHeight the height of the resized picture
+     * @return the resized picture
+     * @see #resizeTo(int, int, SeamOrder)
+     */
+    public Picture resizeTo(int targetWidth, int targetHeight) {
+        return resizeTo(targetWidth, targetHeight, SeamOrder.VERTICAL_FIRST);
+    }
+
+    /**
+     * Resizes the current picture to the target size by removing seams in the given order. The
+     * seams are removed in place, the {@link Picture} is created only once, at the end.
+     * <p>
+     * Throw a java.lang.IllegalArgumentException if the order is null or if the target width or
+     * height is less than 1 or greater than the current width or height.
+     *
+     * @param targetWidth  the width of the resized picture
+     * @param targetHeight the height of the resized picture
+     * @param order        the {@link SeamOrder} of the vertical and horizontal seams
+     * @return the resized picture
+     */
+    public Picture resizeTo(int targetWidth, int targetHeight, SeamOrder order) {
+        if (order == null) {
+            throw new IllegalArgumentException();
+        }
+        if (targetWidth < 1 || targetHeight < 1 || targetWidth > width || targetHeight > height) {
+            throw new IllegalArgumentException(
+                    String.format("Wrong target width: %d or height: %d for width: %d, height: %d",
+                                  targetWidth, targetHeight, width, height));
+        }
+        carve(targetWidth, targetHeight, order);
+        return picture();
+    }
+
+    /**
+     * Removes seams until the picture has the target size
+     *
+     * @param targetWidth  the target width
+     * @param targetHeight the target height
+     * @param order        the {@link SeamOrder} of the vertical and horizontal seams
+     */
+    private void carve(int targetWidth, int targetHeight, SeamOrder order) {
+        boolean vertical = order != SeamOrder.HORIZONTAL_FIRST;
+        while (width > targetWidth || height > targetHeight) {
+            if (width == targetWidth) {
+                vertical = false;
+            }
+            else if (height == targetHeight) {
+                vertical = true;
+            }
+            else if (order == SeamOrder.CHEAPEST) {
+                Path verticalSeam = findSeam(true);
+                Path horizontalSeam = findSeam(false);
+                vertical = verticalSeam.distance / height <= horizontalSeam.distance / width;
+            }
+
+            int[] seam = findSeam(vertical).steps;
+            if (vertical) {
+                removeVerticalSeam(seam);
+            }
+            else {
+                removeHorizontalSeam(seam);
+            }
+
+            if (order == SeamOrder.ALTERNATE) {
+                vertical = !vertical;
+            }
+        }
     }
 
 
@@ -159,21 +935,17 @@ public class SeamCarver {
         }
         checkSeam(seam, false);
 
-        // create new Picture
-        Picture p = new Picture(width(), height() - 1);
-        for (int x = 0; x < width(); x++) {
-            // copy pixels before the seam
-            for (int y = 0; y < seam[x]; y++) {
-                p.set(x, y, picture.get(x, y));
-            }
-            // copy pixels after the seam
-            for (int y = seam[x]; y < height() - 1; y++) {
-                p.set(x, y, picture.get(x, y + 1));
-            }
-        }
-        picture = p;
-
+        orient(false);
+        height--;
+        removeSeam(seam);
 
+        verticalPath = null;
+        if (compact) {
+            horizontalPath = null;
+        }
+        else if (horizontalPath != null) {
+            horizontalPath.removeSeam(seam);
+        }
     }
 
     /**
@@ -205,10 +977,10 @@ public class SeamCarver {
         }
 
         for (int i = 0; i < seam.length; i++) {
-            if (seam[i] < 0 || seam[i] > max) {
+            if (seam[i] < 0 || seam[i] >= max) {
                 throw new IllegalArgumentException(
                         String.format("Seam array element seam[%d]=%d is out of range[%d,%d]", i,
-                                      seam[i], 0, max));
+                                      seam[i], 0, max - 1));
             }
             if (i < seam.length - 1) {
                 if (Math.abs(seam[i + 1] - seam[i]) > 1) {
@@ -241,46 +1013,163 @@ public class SeamCarver {
             throw new IllegalArgumentException();
         }
         checkSeam(seam, true);
-        // create new Picture
-        Picture p = new Picture(width() - 1, height());
-        for (int y = 0; y < height(); y++) {
-            // copy pixels before the seam
-            for (int x = 0; x < seam[y]; x++) {
-                p.set(x, y, picture.get(x, y));
+
+        orient(true);
+        width--;
+        removeSeam(seam);
+
+        horizontalPath = null;
+        if (compact) {
+            verticalPath = null;
+        }
+        else if (verticalPath != null) {
+            verticalPath.removeSeam(seam);
+        }
+    }
+
+    /**
+     * Removes the seam (a vertical seam of the buffers: entry row is the column of the pixel to
+     * remove) from the pixel and energy buffers and recalculates the energy of the pixels next to
+     * the seam. The width/height must be already decreased.
+     *
+     * @param seam the seam to remove
+     */
+    private void removeSeam(int[] seam) {
+        // shift the pixels and energies after the seam left
+        removeSeam(pixels, seam);
+        if (!hasEnergyBuffer()) {
+            return;
+        }
+        removeSeam(getEnergies(), seam);
+
+        // only the pixels next to the seam have new neighbours
+        for (int row = 0; row < getRows(); row++) {
+            for (int column = Math.max(seam[row] - 1, 0);
+                 column <= Math.min(seam[row], getColumns() - 1); column++) {
+                int squaredEnergy = calculateSquaredEnergy(column, row);
+                if (compact) {
+                    squaredEnergyBuffer[stride * row + column] = squaredEnergy;
+                }
+                else {
+                    energyBuffer[stride * row + column] = Math.sqrt(squaredEnergy);
+                }
             }
-            // copy pixels after the seam
-            for (int x = seam[y]; x < width() - 1; x++) {
-                p.set(x, y, picture.get(x + 1, y));
+        }
+    }
+
+    /**
+     * Removes the seam from the buffer in place by shifting the tail of each row left, the
+     * width/height must be already decreased.
+     *
+     * @param buffer the buffer (a primitive array) with rows of stride length
+     * @param seam   the removed seam
+     */
+    private void removeSeam(Object buffer, int[] seam) {
+        for (int row = 0; row < getRows(); row++) {
+            int index = stride * row + seam[row];
+            System.arraycopy(buffer, index + 1, buffer, index, getColumns() - seam[row]);
+        }
+    }
+
+    /**
+     * {@link EnergyKernel} calculating the pixels one by one
+     */
+    private static class ScalarEnergyKernel implements EnergyKernel {
+
+        @Override
+        public void calculate(int[] pixels, int stride, int index, int length, double[] energy) {
+            for (int current = index; current < index + length; current++) {
+                energy[current] = Math.sqrt(
+                        gradientSquared(pixels[current + 1], pixels[current - 1])
+                                + gradientSquared(pixels[current + stride],
+                                                  pixels[current - stride]));
             }
         }
-        picture = p;
 
+        @Override
+        public void calculateSquared(int[] pixels, int stride, int index, int length,
+                                     int[] squaredEnergy) {
+            for (int current = index; current < index + length; current++) {
+                squaredEnergy[current] =
+                        gradientSquared(pixels[current + 1], pixels[current - 1])
+                                + gradientSquared(pixels[current + stride],
+                                                  pixels[current - stride]);
+            }
+        }
     }
 
     /**
-     * Value object to store the components of a color
+     * The arrays of the buffers and seam cost tables of a {@link SeamCarver}. A workspace can be
+     * passed to the next seam carver when the previous one is not used anymore, so the large
+     * arrays are reused if they are large enough for the next picture.
      */
-    private static class ColorResult {
-        private int r;
-        private int g;
-        private int b;
+    static class Workspace {
+        private int[] pixels;
+        private int[] transposedPixels;
+        private double[] energies;
+        private double[] transposedEnergies;
+        private int[] squaredEnergies;
+        private int[] transposedSquaredEnergies;
+        private double[] verticalDistances;
+        private double[] horizontalDistances;
+        private byte[] verticalEdges;
+        private byte[] horizontalEdges;
+
+        private static int[] ensure(int[] array, int length) {
+            return array != null && array.length >= length ? array : new int[length];
+        }
 
-        public ColorResult(int r, int g, int b) {
-            this.r = r;
-            this.g = g;
-            this.b = b;
+        private static double[] ensure(double[] array, int length) {
+            return array != null && array.length >= length ? array : new double[length];
         }
 
-        public double squared() {
-            return r * r + g * g + b * b;
+        private static byte[] ensure(byte[] array, int length) {
+            return array != null && array.length >= length ? array : new byte[length];
+        }
+    }
+
+    /**
+     * Action processing a range of indices
+     */
+    private interface RangeAction {
+        void run(int from, int to);
+    }
+
+    /**
+     * Task splitting a range in halves until it is not longer than the threshold
+     */
+    private static class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final RangeAction action;
+
+        public RangeTask(int from, int to, int threshold, RangeAction action) {
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.action = action;
         }
 
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                action.run(from, to);
+            }
+            else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RangeTask(from, middle, threshold, action),
+                          new RangeTask(middle, to, threshold, action));
+            }
+        }
     }
 
     /**
      * Value object for the minimum energy path
      */
-    private static class Path {
+    static class Path {
         private int[] steps;
         private double distance;
 
@@ -289,6 +1178,22 @@ public class SeamCarver {
             this.distance = distance;
         }
 
+        /**
+         * Returns the seam: the column (vertical) or row (horizontal) of the pixel in each
+         * row/column
+         */
+        int[] steps() {
+            return steps;
+        }
+
+        /**
+         * Returns the sum of the energies of the pixels of the seam, except the first one (the
+         * forward costs with the forward energy function)
+         */
+        double distance() {
+            return distance;
+        }
+
         @Override
         public String toString() {
             return "Path{" +
@@ -299,276 +1204,305 @@ public class SeamCarver {
     }
 
     /**
-     * Class for holding the data and functionality to find the minimum energy path by relaxation
+     * Class for holding the data and functionality to find the minimum energy path by relaxation.
+     * <p>
+     * The path goes through the rows of the buffers of the {@link SeamCarver}, one pixel per row
+     * (a vertical seam of the buffers), so a horizontal path is found on the transposed buffers.
+     * The tables are indexed the same way as the buffers of the {@link SeamCarver}.
+     * <p>
+     * The tables are kept after the path is found. When a seam of the same direction is removed,
+     * only the pixels whose distance can change are relaxed again: the ones next to the removed
+     * seam and the children of the pixels whose distance changed in the previous row.
+     * <p>
+     * With the forward energy function the energy of a pixel depends on its parent: it is
+     * calculated from the pixels around it while relaxing. The forward costs of a pixel only change
+     * if it is next to the removed seam, or between the removed pixels of its row and the previous
+     * row, so the incremental update relaxes the same pixels.
+     * <p>
+     * In the compact mode of the {@link SeamCarver} only two rolling rows of distances are kept,
+     * the path is traced back by the edges.
      */
     private static class MinimumEnergyPath {
         private SeamCarver seamCarver;
-        private boolean vertical;
-        private double[] distance;
-        private double[] energy;
-        private int[] edgeTo;
-        private int height;
-        private int width;
 
-        public MinimumEnergyPath(SeamCarver seamCarver, int width, int height, boolean vertical) {
+        /**
+         * True if only the rolling rows of distances are kept (compact mode)
+         */
+        private boolean rolling;
+
+        /**
+         * True if the forward costs are calculated from the pixels while relaxing, false if the
+         * energies of the energy buffer are used
+         */
+        private boolean forward;
+
+        /**
+         * Distance of each pixel with the same layout as the energy buffer, or only the distances
+         * of the last row in the rolling mode
+         */
+        private double[] distance;
 
-            this.vertical = vertical;
-            this.width = width;
-            this.height = height;
-            distance = new double[width * height];
-            edgeTo = new int[width * height];
-            energy = new double[width * height];
+        /**
+         * Column of the parent pixel in the previous row relative to the column of the pixel (-1,
+         * 0 or 1), 0 for the first row. It stays valid when the pixel and its parents are shifted
+         * together by removing a seam.
+         */
+        private byte[] edgeTo;
 
-            // set initial distances
-            Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        public MinimumEnergyPath(SeamCarver seamCarver, boolean vertical) {
 
-            // set distances/edges to zero/-1 for starting row/column
+            this.seamCarver = seamCarver;
+            this.rolling = seamCarver.compact;
+            this.forward = seamCarver.energyFunction == EnergyFunction.FORWARD;
+            // same layout as the buffers, the arrays of the workspace are used for the tables
+            Workspace workspace = seamCarver.workspace;
+            int length = seamCarver.stride * getRows();
             if (vertical) {
-                for (int x = 0; x < width; x++) {
-                    distance[getIndex(x, 0)] = 0;
-                    edgeTo[getIndex(x, 0)] = -1;
-                }
+                workspace.verticalEdges = Workspace.ensure(workspace.verticalEdges, length);
+                edgeTo = workspace.verticalEdges;
             }
-            else { // horizontal
-                for (int y = 0; y < height; y++) {
-                    distance[getIndex(0, y)] = 0;
-                    edgeTo[getIndex(0, y)] = -1;
-                }
+            else {
+                workspace.horizontalEdges = Workspace.ensure(workspace.horizontalEdges, length);
+                edgeTo = workspace.horizontalEdges;
             }
 
-            // precalculates the energy array
-            for (int x = 0; x < width; x++) {
-                for (int y = 0; y < height; y++) {
-                    energy[getIndex(x, y)] = seamCarver.energy(x, y);
+            // set edges to zero for starting row
+            for (int column = 0; column < getColumns(); column++) {
+                edgeTo[getIndex(0, column)] = 0;
+            }
+
+            // the first row has 0 distances, the columns of a row are relaxed in parallel in the
+            // parallel mode, the next row is started only when the whole row is finished
+            if (rolling) {
+                double[] previous = new double[getColumns()];
+                double[] current = new double[getColumns()];
+                for (int row = 1; row < getRows(); row++) {
+                    int currentRow = row;
+                    double[] parentDistances = previous;
+                    double[] childDistances = current;
+                    seamCarver.forEach(0, getColumns(), PARALLEL_THRESHOLD, (from, to) -> {
+                        for (int column = from; column < to; column++) {
+                            relax(currentRow, column, parentDistances, 0, childDistances, 0);
+                        }
+                    });
+                    previous = childDistances;
+                    current = parentDistances;
+                }
+                distance = previous;
+            }
+            else {
+                if (vertical) {
+                    workspace.verticalDistances =
+                            Workspace.ensure(workspace.verticalDistances, length);
+                    distance = workspace.verticalDistances;
+                }
+                else {
+                    workspace.horizontalDistances =
+                            Workspace.ensure(workspace.horizontalDistances, length);
+                    distance = workspace.horizontalDistances;
+                }
+                Arrays.fill(distance, getIndex(0, 0), getIndex(0, getColumns()), 0);
+                for (int row = 1; row < getRows(); row++) {
+                    int currentRow = row;
+                    seamCarver.forEach(0, getColumns(), PARALLEL_THRESHOLD, (from, to) -> {
+                        for (int column = from; column < to; column++) {
+                            relax(currentRow, column);
+                        }
+                    });
                 }
             }
         }
 
         /**
-         * Returns the index from pixel coordinates
+         * Returns the index in the tables
          *
-         * @param x the x coordinate
-         * @param y the y coordinate
-         * @return the index = width * y + x
+         * @param row    the row of the buffer
+         * @param column the column of the buffer
+         * @return the index = stride * row + column
          */
-        private int getIndex(int x, int y) {
-            return width * y + x;
+        private int getIndex(int row, int column) {
+            return seamCarver.stride * row + column;
+        }
+
+        private int getRows() {
+            return seamCarver.getRows();
+        }
+
+        private int getColumns() {
+            return seamCarver.getColumns();
         }
 
         /**
-         * Returns the shortest path (minimum energy) in horizontal direction
-         *
-         * @return the shortest path (minimum energy) in horizontal direction
+         * Moves the rows of the tables next to each other, called by {@link SeamCarver#compact()}
          */
-        private Path shortestPathHorizontal() {
-            // leftmost column has distance 0
-            for (int x = 1; x < width; x++) {
-                for (int y = 0; y < height; y++) {
-                    relaxHorizontal(x, y);
-                }
+        private void compact() {
+            if (!rolling) {
+                seamCarver.compact(distance);
             }
-
-            return getPath();
+            seamCarver.compact(edgeTo);
         }
 
         /**
-         * Calculates the distance(energy) to the pixel (childX, childY) in horizontal direction
+         * Calculates the minimum distance (and edge to the parent) to the pixel (row, column) from
+         * its parents in the previous row of the distance table
          *
-         * @param childX the pixel's x coordinate
-         * @param childY the pixel's y coordinate
+         * @param row    the row of the pixel
+         * @param column the column of the pixel
          */
-        private void relaxHorizontal(int childX, int childY) {
-            int parentX = childX - 1;
-
-            for (int parentY = childY - 1; parentY <= childY + 1; parentY++) {
-
-                if (parentY >= 0 && parentY < height) {
-
-                    int childIndex = getIndex(childX, childY);
-                    int parentIndex = getIndex(parentX, parentY);
-
-                    double distanceToParentPlusChildEnergy = distance[parentIndex]
-                            + energy[childIndex];
-                    double childDistance = distance[childIndex];
-
-                    if (childDistance > distanceToParentPlusChildEnergy) {
-                        distance[childIndex] = distanceToParentPlusChildEnergy;
-                        edgeTo[childIndex] = parentIndex;
-                    }
-                }
-            }
+        private void relax(int row, int column) {
+            relax(row, column, distance, getIndex(row - 1, 0), distance, getIndex(row, 0));
         }
 
         /**
-         * Returns the path from calculated distances
+         * Calculates the minimum distance (and edge to the parent) to the pixel (row, column) from
+         * its parents in the previous row
          *
-         * @return the {@link Path}
+         * @param row             the row of the pixel
+         * @param column          the column of the pixel
+         * @param parentDistances the distances of the previous row
+         * @param parentOffset    the index of the first column in parentDistances
+         * @param childDistances  the distances of the row of the pixel
+         * @param childOffset     the index of the first column in childDistances
          */
-        private Path getPath() {
-
-            double minEnergy = 0;
-            int parentIndex;
-            int[] result;
-
-            if (vertical) {
-
-                // find minimum end of seam
-                int minX = -1;
-                double minValue = Double.MAX_VALUE;
-                // find minimum distance at the bottom row
-                for (int x = 0; x < width; x++) {
-                    double currentDistance = distance[getIndex(x, height - 1)];
-                    if (currentDistance < minValue) {
-                        minValue = currentDistance;
-                        minX = x;
-                    }
+        private void relax(int row, int column, double[] parentDistances, int parentOffset,
+                           double[] childDistances, int childOffset) {
+            int childIndex = getIndex(row, column);
+            double childDistance = Double.POSITIVE_INFINITY;
+            int parent = 0;
+
+            int parentFrom = Math.max(column - 1, 0);
+            int parentTo = Math.min(column + 1, getColumns() - 1);
+
+            // the energy of the pixel after the upper, left and right parent
+            double upEnergy;
+            double leftEnergy = 0;
+            double rightEnergy = 0;
+            if (forward) {
+                upEnergy = seamCarver.getForwardUpCost(childIndex, column);
+                if (parentFrom < column) {
+                    leftEnergy = upEnergy
+                            + seamCarver.getForwardSideCost(childIndex, childIndex - 1);
                 }
-
-                result = new int[height];
-                parentIndex = getIndex(minX, height - 1);
-                int y = height - 1;
-                while (parentIndex >= 0) {
-                    result[y--] = getX(parentIndex);
-                    parentIndex = edgeTo[parentIndex];
+                if (parentTo > column) {
+                    rightEnergy = upEnergy
+                            + seamCarver.getForwardSideCost(childIndex, childIndex + 1);
                 }
-
             }
-
             else {
-                // horizontal path
-
-                int minY = -1;
-                double minValue = Double.MAX_VALUE;
-                // find minimum distance at the leftmost row
-                for (int y = 0; y < height; y++) {
-                    double currentDistance = distance[getIndex(width - 1, y)];
-                    if (currentDistance < minValue) {
-                        minValue = currentDistance;
-                        minY = y;
-                    }
-                }
-
-                result = new int[width];
-                parentIndex = getIndex(width - 1, minY);
-                int x = width - 1;
-                while (parentIndex >= 0) {
-                    result[x--] = getY(parentIndex);
-                    parentIndex = edgeTo[parentIndex];
-                }
+                upEnergy = seamCarver.getEnergy(childIndex);
+                leftEnergy = upEnergy;
+                rightEnergy = upEnergy;
             }
-            return new Path(result, minEnergy);
-        }
 
-        /**
-         * Returns the x coordinate from the index
-         *
-         * @param index the index
-         * @return the x coordinate from the index
-         */
-        private int getX(int index) {
-            return index % width;
-        }
+            for (int parentColumn = parentFrom; parentColumn <= parentTo; parentColumn++) {
 
-        /**
-         * Returns the y coordinate from the index
-         *
-         * @param index the index
-         * @return the y coordinate from the index
-         */
-        private int getY(int index) {
-            return index / width;
+                double childEnergy = parentColumn == column ? upEnergy
+                        : parentColumn < column ? leftEnergy : rightEnergy;
+                double parentDistancePlusEnergy = parentDistances[parentOffset + parentColumn]
+                        + childEnergy;
+
+                if (childDistance > parentDistancePlusEnergy) {
+                    childDistance = parentDistancePlusEnergy;
+                    parent = parentColumn;
+                }
+            }
+            childDistances[childOffset + column] = childDistance;
+            edgeTo[childIndex] = (byte) (parent - column);
         }
 
         /**
-         * Calculates the minimum distances to each pixel by relaxing each pixels (edges leading
-         * from the pixel to its parent pixels)
+         * Updates the tables after the seam (of the same direction) is removed from the buffers of
+         * the {@link SeamCarver}.
+         * <p>
+         * A pixel keeps its distance if its energy and its parents are unchanged: the pixels next
+         * to the seam get new neighbours (energy) or new parents, the others only change if the
+         * distance of one of their parents changed. So each row is relaxed only around the seam
+         * and below the range of the changed pixels of the previous row, which gives the same
+         * tables as relaxing every pixel.
          *
-         * @return the minimum energy {@link Path}
+         * @param seam the removed seam
          */
-        public Path shortestPathVertical() {
-            // the first row has 0 distances
-            for (int y = 1; y < height; y++) {
-                for (int x = 0; x < width; x++) {
-                    relaxVertical(x, y);
+        private void removeSeam(int[] seam) {
+            // remove the seam from the tables
+            seamCarver.removeSeam(distance, seam);
+            seamCarver.removeSeam(edgeTo, seam);
+
+            int changedFrom = Integer.MAX_VALUE;
+            int changedTo = Integer.MIN_VALUE;
+            for (int row = 1; row < getRows(); row++) {
+                int from = Math.min(seam[row - 1], seam[row]) - 2;
+                int to = Math.max(seam[row - 1], seam[row]) + 1;
+                if (changedFrom <= changedTo) {
+                    from = Math.min(from, changedFrom - 1);
+                    to = Math.max(to, changedTo + 1);
+                }
+                from = Math.max(from, 0);
+                to = Math.min(to, getColumns() - 1);
+
+                changedFrom = Integer.MAX_VALUE;
+                changedTo = Integer.MIN_VALUE;
+                for (int column = from; column <= to; column++) {
+                    int index = getIndex(row, column);
+                    double oldValue = distance[index];
+                    relax(row, column);
+                    if (distance[index] != oldValue) {
+                        changedFrom = Math.min(changedFrom, column);
+                        changedTo = Math.max(changedTo, column);
+                    }
                 }
             }
-
-            return getPath();
         }
 
         /**
-         * Calculates the minimum distance (and edge to the parent) to the pixel (childX, childY)
+         * Returns the path from calculated distances
          *
-         * @param childX the x coordinate of the pixel
-         * @param childY the y coordinate of the pixel
+         * @return the {@link Path}
          */
-        private void relaxVertical(int childX, int childY) {
-            int parentY = childY - 1;
-
-            for (int parentX = childX - 1; parentX <= childX + 1; parentX++) {
-
-                if (parentX >= 0 && parentX < width) {
-
-                    int childIndex = getIndex(childX, childY);
-                    int parentIndex = getIndex(parentX, parentY);
-
-                    double parentDistancePlusEnergy = distance[parentIndex] + energy[childIndex];
-                    double childDistance = distance[childIndex];
-
-                    if (childDistance > parentDistancePlusEnergy) {
-                        distance[childIndex] = parentDistancePlusEnergy;
-                        edgeTo[childIndex] = parentIndex;
-                    }
+        private Path getPath() {
+            int lastRow = getRows() - 1;
+
+            // find minimum distance at the last row
+            int minColumn = -1;
+            double minValue = Double.MAX_VALUE;
+            for (int column = 0; column < getColumns(); column++) {
+                double currentDistance = distance[rolling ? column : getIndex(lastRow, column)];
+                if (currentDistance < minValue) {
+                    minValue = currentDistance;
+                    minColumn = column;
                 }
             }
-        }
 
+            int[] result = new int[getRows()];
+            int column = minColumn;
+            for (int row = lastRow; row >= 0; row--) {
+                result[row] = column;
+                column += edgeTo[getIndex(row, column)];
+            }
+            return new Path(result, minValue);
+        }
 
         /**
-         * Prints the distance for each pixel, with an asterisk when it is on the minimum energy
-         * path and the direction to the parent pixel (left-up:"\", up:"|", right-up: "/"
+         * Prints the distance for each pixel of the buffers (transposed for a horizontal path, NaN
+         * in the rolling mode), with an asterisk when it is on the minimum energy path and the
+         * direction to the parent pixel (left-up:"\\", up:"|", right-up: "/"
          */
         public void print() {
             System.out.println();
             Path path = getPath();
-            for (int y = 0; y < height; y++) {
-                for (int x = 0; x < width; x++) {
-                    boolean isOnPath = false;
-
-                    if (vertical) {
-                        if (path.steps[y] == x) {
-                            isOnPath = true;
-                        }
-                    }
-                    else {
-                        if (path.steps[x] == y) {
-                            isOnPath = true;
-                        }
-                    }
+            for (int row = 0; row < getRows(); row++) {
+                for (int column = 0; column < getColumns(); column++) {
+                    boolean isOnPath = path.steps[row] == column;
 
-                    int index = edgeTo[getIndex(x, y)];
+                    int parent = edgeTo[getIndex(row, column)];
                     String arrow;
-                    if (vertical) {
-                        if (getX(index) < x) {
-                            arrow = "\\";
-                        }
-                        else if (getX(index) == x) {
-                            arrow = "|";
-                        }
-                        else {
-                            arrow = "/";
-                        }
+                    if (parent < 0) {
+                        arrow = "\\";
+                    }
+                    else if (parent == 0) {
+                        arrow = "|";
                     }
                     else {
-                        if (getY(index) < y) {
-                            arrow = "/";
-                        }
-                        else if (getY(index) == y) {
-                            arrow = "-";
-                        }
-                        else {
-                            arrow = "\\";
-                        }
+                        arrow = "/";
                     }
 
                     String pathStr = " ";
@@ -576,8 +1510,8 @@ public class SeamCarver {
                         pathStr = "*";
                     }
 
-                    StdOut.printf("%8.2f%s%s ", distance[getIndex(x, y)], arrow, pathStr);
-                    //  StdOut.printf("%3d ", edgeTo[getIndex(x, y)]);
+                    double value = rolling ? Double.NaN : distance[getIndex(row, column)];
+                    StdOut.printf("%8.2f%s%s ", value, arrow, pathStr);
                 }
                 StdOut.println();
             }
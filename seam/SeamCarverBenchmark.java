@@ -0,0 +1,82 @@
+import edu.princeton.cs.algs4.Picture;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Benchmark of {@link SeamCarver#findVerticalSeam()} and {@link SeamCarver#findHorizontalSeam()} on
+ * random pictures, parameterized by the size of the picture: finding the first seam (energy and seam cost table calculated from scratch) and
+ * finding and removing the next seams (tables updated incrementally). The first seam is also
+ * measured in the parallel mode, using the common {@link ForkJoinPool}, and with the forward
+ * energy function (no energy buffer). Resizing measures {@link
+ * SeamCarver#resizeTo(int, int)} removing {@value #RESIZE_SEAMS} seams in both directions.
+ * <p>
+ * Usage: <code>java SeamCarverBenchmark [widthxheight ...]</code> (default: 500x500 1920x1080
+ * 3840x2160)
+ * <p>
+ * The operations are measured by {@link Benchmark} ({@value #WARMUP_ITERATIONS} warm-up, {@value
+ * #MEASUREMENT_ITERATIONS} measured runs).
+ */
+public class SeamCarverBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+    private static final int RESIZE_SEAMS = 16;
+    private static final String[] DEFAULT_SIZES = { "500x500", "1920x1080", "3840x2160" };
+    private static final Benchmark BENCHMARK =
+            new Benchmark(WARMUP_ITERATIONS, MEASUREMENT_ITERATIONS);
+
+    public static void main(String[] args) {
+        String[] sizes = args.length > 0 ? args : DEFAULT_SIZES;
+
+        Benchmark.printHeader();
+        for (String size : sizes) {
+            String[] dimensions = size.split("x");
+            int width = Integer.parseInt(dimensions[0]);
+            int height = Integer.parseInt(dimensions[1]);
+
+            Picture picture = randomPicture(width, height);
+            BENCHMARK.measure("SeamCarver.findVerticalSeam", size,
+                    () -> new SeamCarver(picture).findVerticalSeam()[0]);
+            BENCHMARK.measure("SeamCarver.findVerticalSeam.forward", size,
+                    () -> new SeamCarver(picture, null, false,
+                                           SeamCarver.EnergyFunction.FORWARD)
+                            .findVerticalSeam()[0]);
+            BENCHMARK.measure("SeamCarver.findVerticalSeam.parallel", size,
+                    () -> new SeamCarver(picture, ForkJoinPool.commonPool())
+                            .findVerticalSeam()[0]);
+
+            SeamCarver seamCarver = new SeamCarver(picture);
+            BENCHMARK.measure("SeamCarver.removeVerticalSeam", size, () -> {
+                int[] seam = seamCarver.findVerticalSeam();
+                seamCarver.removeVerticalSeam(seam);
+                return seam[0];
+            });
+
+            BENCHMARK.measure("SeamCarver.findHorizontalSeam", size,
+                    () -> new SeamCarver(picture).findHorizontalSeam()[0]);
+
+            BENCHMARK.measure("SeamCarver.removeHorizontalSeam", size, () -> {
+                int[] seam = seamCarver.findHorizontalSeam();
+                seamCarver.removeHorizontalSeam(seam);
+                return seam[0];
+            });
+
+            String resize = "SeamCarver.resizeTo(-" + RESIZE_SEAMS + "x-" + RESIZE_SEAMS + ")";
+            BENCHMARK.measure(resize, size,
+                    () -> new SeamCarver(picture)
+                            .resizeTo(width - RESIZE_SEAMS, height - RESIZE_SEAMS).width());
+        }
+    }
+
+    private static Picture randomPicture(int width, int height) {
+        Random random = new Random((long) width * height);
+        Picture picture = new Picture(width, height);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                picture.setRGB(x, y, random.nextInt(1 << 24));
+            }
+        }
+        return picture;
+    }
+}
@@ -0,0 +1,341 @@
+import edu.princeton.cs.algs4.Picture;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resizes many pictures concurrently with {@link SeamCarver#resizeTo(int, int)}.
+ * <p>
+ * The jobs run on an {@link ExecutorService}: a fixed thread pool, virtual threads (Java 21+) or
+ * any executor given by the caller. The number of jobs carving at the same time is bounded by the
+ * number of {@link SeamCarver.Workspace}s: each job takes a workspace from a {@link BlockingQueue}
+ * (waiting if there is none) and puts it back when finished, so the large buffers and seam cost
+ * tables are reused by the next jobs instead of being allocated for each picture.
+ * <p>
+ * The latency of each job (from submitting to finishing) is returned in its {@link Result}, the
+ * throughput of the service is returned by {@link #getStatistics()}.
+ */
+public class SeamCarvingService implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final boolean ownExecutor;
+    private final BlockingQueue<SeamCarver.Workspace> workspaces;
+    private final long startTime = System.nanoTime();
+
+    private final AtomicLong completedJobs = new AtomicLong();
+    private final AtomicLong removedPixels = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();
+    private final AtomicLong maxLatency = new AtomicLong();
+
+    /**
+     * A picture to resize to the target size
+     */
+    public static class Job {
+        private final Picture picture;
+        private final int targetWidth;
+        private final int targetHeight;
+
+        public Job(Picture picture, int targetWidth, int targetHeight) {
+            if (picture == null) {
+                throw new IllegalArgumentException();
+            }
+            this.picture = picture;
+            this.targetWidth = targetWidth;
+            this.targetHeight = targetHeight;
+        }
+    }
+
+    /**
+     * The resized picture of a {@link Job} with the time spent on it
+     */
+    public static class Result {
+        private final Picture picture;
+        private final long latencyNanos;
+        private final long carvingNanos;
+
+        public Result(Picture picture, long latencyNanos, long carvingNanos) {
+            this.picture = picture;
+            this.latencyNanos = latencyNanos;
+            this.carvingNanos = carvingNanos;
+        }
+
+        public Picture picture() {
+            return picture;
+        }
+
+        /**
+         * Returns the time from submitting the job to finishing it, including waiting for a
+         * thread and a workspace
+         */
+        public long latencyNanos() {
+            return latencyNanos;
+        }
+
+        /**
+         * Returns the time of carving the picture
+         */
+        public long carvingNanos() {
+            return carvingNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Result{%dx%d, latency=%.3f ms, carving=%.3f ms}",
+                                 picture.width(), picture.height(), latencyNanos / 1e6,
+                                 carvingNanos / 1e6);
+        }
+    }
+
+    /**
+     * The throughput of the service since it was created
+     */
+    public static class Statistics {
+        private final long completedJobs;
+        private final long removedPixels;
+        private final double averageLatencyMillis;
+        private final double maxLatencyMillis;
+        private final double jobsPerSecond;
+
+        private Statistics(long completedJobs, long removedPixels, double averageLatencyMillis,
+                           double maxLatencyMillis, double jobsPerSecond) {
+            this.completedJobs = completedJobs;
+            this.removedPixels = removedPixels;
+            this.averageLatencyMillis = averageLatencyMillis;
+            this.maxLatencyMillis = maxLatencyMillis;
+            this.jobsPerSecond = jobsPerSecond;
+        }
+
+        public long completedJobs() {
+            return completedJobs;
+        }
+
+        public long removedPixels() {
+            return removedPixels;
+        }
+
+        public double averageLatencyMillis() {
+            return averageLatencyMillis;
+        }
+
+        public double maxLatencyMillis() {
+            return maxLatencyMillis;
+        }
+
+        public double jobsPerSecond() {
+            return jobsPerSecond;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "Statistics{jobs=%d, removed pixels=%d, average latency=%.3f ms, "
+                            + "max latency=%.3f ms, throughput=%.2f jobs/s}",
+                    completedJobs, removedPixels, averageLatencyMillis, maxLatencyMillis,
+                    jobsPerSecond);
+        }
+    }
+
+    /**
+     * Creates a service with a fixed thread pool and one workspace per thread
+     *
+     * @param threads the number of threads
+     */
+    public SeamCarvingService(int threads) {
+        this(Executors.newFixedThreadPool(threads), threads, true);
+    }
+
+    /**
+     * Creates a service running the jobs on the given executor. The executor is not shut down by
+     * {@link #close()}.
+     *
+     * @param executor   the {@link ExecutorService}
+     * @param workspaces the number of workspaces: the maximum number of jobs carving at the same
+     *                   time
+     */
+    public SeamCarvingService(ExecutorService executor, int workspaces) {
+        this(executor, workspaces, false);
+    }
+
+    private SeamCarvingService(ExecutorService executor, int workspaces, boolean ownExecutor) {
+        if (executor == null || workspaces < 1) {
+            throw new IllegalArgumentException(
+                    String.format("Wrong executor: %s or number of workspaces: %d", executor,
+                                  workspaces));
+        }
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
+        this.workspaces = new ArrayBlockingQueue<>(workspaces);
+        for (int i = 0; i < workspaces; i++) {
+            this.workspaces.add(new SeamCarver.Workspace());
+        }
+    }
+
+    /**
+     * Creates a service starting a virtual thread for each job (Java 21+). The virtual threads
+     * are cheap, the number of jobs carving at the same time is bounded by the workspaces.
+     *
+     * @param workspaces the number of workspaces, typically the number of processors
+     * @return the service
+     * @throws UnsupportedOperationException if virtual threads are not supported by the JVM
+     */
+    public static SeamCarvingService withVirtualThreads(int workspaces) {
+        ExecutorService executor;
+        try {
+            // Executors.newVirtualThreadPerTaskExecutor() exists from Java 21 only
+            executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Virtual threads are not supported", e);
+        }
+        return new SeamCarvingService(executor, workspaces, true);
+    }
+
+    /**
+     * Submits the job
+     *
+     * @param job the {@link Job}
+     * @return the {@link Future} of the {@link Result}
+     */
+    public Future<Result> submit(Job job) {
+        if (job == null) {
+            throw new IllegalArgumentException();
+        }
+        long submitTime = System.nanoTime();
+        return executor.submit(() -> carve(job, submitTime));
+    }
+
+    /**
+     * Submits all jobs of the queue (removing them from the queue) and waits for the results
+     *
+     * @param jobs the queue of the jobs
+     * @return the results in the order of the jobs
+     */
+    public List<Result> carveAll(Queue<Job> jobs) {
+        if (jobs == null) {
+            throw new IllegalArgumentException();
+        }
+        List<Future<Result>> futures = new ArrayList<>();
+        for (Job job = jobs.poll(); job != null; job = jobs.poll()) {
+            futures.add(submit(job));
+        }
+        List<Result> results = new ArrayList<>(futures.size());
+        for (Future<Result> future : futures) {
+            results.add(await(future));
+        }
+        return results;
+    }
+
+    /**
+     * Carves the picture of the job with a workspace of the pool
+     *
+     * @param job        the {@link Job}
+     * @param submitTime the time of submitting the job
+     * @return the {@link Result}
+     * @throws InterruptedException if interrupted while waiting for a workspace
+     */
+    private Result carve(Job job, long submitTime) throws InterruptedException {
+        SeamCarver.Workspace workspace = workspaces.take();
+        long start = System.nanoTime();
+        Picture picture;
+        try {
+            SeamCarver seamCarver = new SeamCarver(job.picture, null, false,
+                                                   SeamCarver.EnergyFunction.BACKWARD, workspace);
+            picture = seamCarver.resizeTo(job.targetWidth, job.targetHeight);
+        }
+        finally {
+            workspaces.put(workspace);
+        }
+        long end = System.nanoTime();
+
+        long latency = end - submitTime;
+        completedJobs.incrementAndGet();
+        removedPixels.addAndGet((long) job.picture.width() * job.picture.height()
+                                        - (long) picture.width() * picture.height());
+        totalLatency.addAndGet(latency);
+        maxLatency.accumulateAndGet(latency, Math::max);
+        return new Result(picture, latency, end - start);
+    }
+
+    /**
+     * Returns the throughput of the service since it was created
+     *
+     * @return the {@link Statistics}
+     */
+    public Statistics getStatistics() {
+        long jobs = completedJobs.get();
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        return new Statistics(jobs, removedPixels.get(),
+                              jobs == 0 ? 0 : totalLatency.get() / 1e6 / jobs,
+                              maxLatency.get() / 1e6, jobs / seconds);
+    }
+
+    /**
+     * Shuts down the executor if it was created by the service
+     */
+    @Override
+    public void close() {
+        if (ownExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Resizes the pictures to the given percentage of their size, printing the latency of each
+     * job and the throughput.
+     * <p>
+     * Usage: <code>java SeamCarvingService threads|virtual percent picture...</code>
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int percent = Integer.parseInt(args[1]);
+        SeamCarvingService service;
+        if ("virtual".equals(args[0])) {
+            service = withVirtualThreads(Runtime.getRuntime().availableProcessors());
+        }
+        else {
+            service = new SeamCarvingService(Integer.parseInt(args[0]));
+        }
+
+        try (SeamCarvingService s = service) {
+            Queue<Job> jobs = new ArrayDeque<>();
+            for (int i = 2; i < args.length; i++) {
+                Picture picture = new Picture(args[i]);
+                jobs.add(new Job(picture, Math.max(1, picture.width() * percent / 100),
+                                 Math.max(1, picture.height() * percent / 100)));
+            }
+            List<Result> results = s.carveAll(jobs);
+            for (int i = 0; i < results.size(); i++) {
+                StdOut.println(args[i + 2] + ": " + results.get(i));
+            }
+            StdOut.println(s.getStatistics());
+        }
+    }
+}
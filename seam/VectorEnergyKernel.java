@@ -0,0 +1,93 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link EnergyKernel} processing the pixels with SIMD lanes of the Vector API.
+ * <p>
+ * The color components are unpacked and the squared gradients are summed in int lanes, then each
+ * half of the int lanes is converted to double lanes for the square root. Both the conversion and
+ * the square root are exact/correctly rounded, so the results are bit-identical with the scalar
+ * calculation.
+ * <p>
+ * The Vector API is an incubator module: compile and run with <code>--add-modules
+ * jdk.incubator.vector</code>. Without it this class cannot be loaded, and {@link SeamCarver} falls
+ * back to the scalar kernel.
+ */
+class VectorEnergyKernel implements EnergyKernel {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    /**
+     * Number of double lanes of a part of the converted int vector
+     */
+    private static final int HALF_LENGTH = SPECIES.length() / 2;
+
+    @Override
+    public void calculate(int[] pixels, int stride, int index, int length, double[] energy) {
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            int current = index + i;
+            IntVector sum = gradientSquared(IntVector.fromArray(SPECIES, pixels, current + 1),
+                                            IntVector.fromArray(SPECIES, pixels, current - 1))
+                    .add(gradientSquared(IntVector.fromArray(SPECIES, pixels, current + stride),
+                                         IntVector.fromArray(SPECIES, pixels, current - stride)));
+
+            for (int part = 0; part < 2; part++) {
+                ((DoubleVector) sum.convert(VectorOperators.I2D, part))
+                        .lanewise(VectorOperators.SQRT)
+                        .intoArray(energy, current + part * HALF_LENGTH);
+            }
+        }
+
+        // tail
+        for (; i < length; i++) {
+            int current = index + i;
+            energy[current] = Math.sqrt(
+                    gradientSquared(pixels[current + 1], pixels[current - 1])
+                            + gradientSquared(pixels[current + stride], pixels[current - stride]));
+        }
+    }
+
+    @Override
+    public void calculateSquared(int[] pixels, int stride, int index, int length,
+                                 int[] squaredEnergy) {
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            int current = index + i;
+            gradientSquared(IntVector.fromArray(SPECIES, pixels, current + 1),
+                            IntVector.fromArray(SPECIES, pixels, current - 1))
+                    .add(gradientSquared(IntVector.fromArray(SPECIES, pixels, current + stride),
+                                         IntVector.fromArray(SPECIES, pixels, current - stride)))
+                    .intoArray(squaredEnergy, current);
+        }
+
+        // tail
+        for (; i < length; i++) {
+            int current = index + i;
+            squaredEnergy[current] = gradientSquared(pixels[current + 1], pixels[current - 1])
+                    + gradientSquared(pixels[current + stride], pixels[current - stride]);
+        }
+    }
+
+    private static IntVector gradientSquared(IntVector first, IntVector second) {
+        IntVector r = component(first, 16).sub(component(second, 16));
+        IntVector g = component(first, 8).sub(component(second, 8));
+        IntVector b = component(first, 0).sub(component(second, 0));
+        return r.mul(r).add(g.mul(g)).add(b.mul(b));
+    }
+
+    private static IntVector component(IntVector rgb, int shift) {
+        return rgb.lanewise(VectorOperators.LSHR, shift).and(0xFF);
+    }
+
+    private static int gradientSquared(int first, int second) {
+        int r = ((first >> 16) & 0xFF) - ((second >> 16) & 0xFF);
+        int g = ((first >> 8) & 0xFF) - ((second >> 8) & 0xFF);
+        int b = (first & 0xFF) - (second & 0xFF);
+        return r * r + g * g + b * b;
+    }
+}
@@ -0,0 +1,52 @@
+import edu.princeton.cs.algs4.Digraph;
+
+import java.util.Random;
+
+/**
+ * Benchmark of {@link SAP#length(int, int)} on random rooted DAGs (like the WordNet hypernym
+ * graph), parameterized by the number of vertices.
+ * <p>
+ * Usage: <code>java SAPBenchmark [vertices ...]</code> (default: 10000 100000 1000000)
+ * <p>
+ * The operations are measured by {@link Benchmark} ({@value #WARMUP_ITERATIONS} warm-up, {@value
+ * #MEASUREMENT_ITERATIONS} measured runs).
+ */
+public class SAPBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASUREMENT_ITERATIONS = 50;
+    private static final int[] DEFAULT_SIZES = { 10_000, 100_000, 1_000_000 };
+    private static final Benchmark BENCHMARK =
+            new Benchmark(WARMUP_ITERATIONS, MEASUREMENT_ITERATIONS);
+
+    public static void main(String[] args) {
+        int[] sizes = Benchmark.parseSizes(args, DEFAULT_SIZES);
+
+        Benchmark.printHeader();
+        for (int size : sizes) {
+            Random random = new Random(size);
+            SAP sap = new SAP(randomRootedDag(size, random));
+            BENCHMARK.measure("SAP.length", size,
+                    () -> sap.length(random.nextInt(size), random.nextInt(size)));
+        }
+    }
+
+    /**
+     * Returns a random rooted DAG: each vertex except the root (0) has one or two edges to
+     * vertices with lower ids
+     *
+     * @param vertices the number of vertices
+     * @param random   the random generator
+     * @return the DAG
+     */
+    private static Digraph randomRootedDag(int vertices, Random random) {
+        Digraph digraph = new Digraph(vertices);
+        for (int v = 1; v < vertices; v++) {
+            digraph.addEdge(v, random.nextInt(v));
+            if (random.nextInt(10) == 0) {
+                digraph.addEdge(v, random.nextInt(v));
+            }
+        }
+        return digraph;
+    }
+}